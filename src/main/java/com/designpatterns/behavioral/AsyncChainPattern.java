@@ -0,0 +1,266 @@
+package com.designpatterns.behavioral;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+An asynchronous variation of the Chain of Responsibility. Every level of a SupportHandler chain becomes a stage with its
+own bounded queue, its own number of worker threads and its own timeout. A ticket that times out is cancelled: it is
+taken off the queue if it has not started, and its handler is interrupted if it has, so timeouts actually shed load.
+Deciding whether a level accepts a ticket is cheap and happens inline; only the actual handling, which usually does I/O,
+is queued on the stage. Tickets are returned as CompletableFutures, so a slow level only delays the tickets it handles
+while other levels keep working on theirs.
+ Pros:
+Isolation: A slow or stuck level cannot block tickets meant for other levels.
+Bounded Resources: Each stage has fixed workers and a fixed queue, so overload is rejected instead of piling up.
+Observability: Every stage reports queue depth, latency, timeouts and rejections.
+ Cons:
+Asynchronous Results: Callers have to deal with futures, timeouts and rejections instead of a plain method call.
+Thread Usage: Every stage owns threads, even when idle.
+Cooperative Timeouts: A timed out handler is interrupted, one that ignores interruption keeps its worker busy.
+ */
+// Result of routing one ticket
+class TicketOutcome {
+    private final SupportTicket ticket;
+    private final SupportHandler handler;
+
+    TicketOutcome(SupportTicket ticket, SupportHandler handler) {
+        this.ticket = ticket;
+        this.handler = handler;
+    }
+
+    public SupportTicket getTicket() {
+        return ticket;
+    }
+
+    // The handler that took the ticket, null when nobody did
+    public SupportHandler getHandler() {
+        return handler;
+    }
+
+    public boolean isHandled() {
+        return handler != null;
+    }
+}
+
+// One level of the chain with its own workers and queue
+class SupportStage {
+    private final SupportHandler handler;
+    private final String name;
+    private final ThreadPoolExecutor executor;
+    private final Duration timeout;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    SupportStage(SupportHandler handler, int concurrency, int queueCapacity, Duration timeout) {
+        this.handler = handler;
+        this.name = handler instanceof SeverityHandler
+                ? ((SeverityHandler) handler).getSeverity()
+                : handler.getClass().getSimpleName();
+        this.timeout = timeout;
+        this.executor = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "support-stage-" + name);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    SupportHandler getHandler() {
+        return handler;
+    }
+
+    CompletableFuture<TicketOutcome> submit(SupportTicket ticket, Runnable work) {
+        long enqueued = System.nanoTime();
+        CompletableFuture<TicketOutcome> future = new CompletableFuture<>();
+        FutureTask<Void> task = new FutureTask<>(() -> {
+            try {
+                work.run();
+                future.complete(new TicketOutcome(ticket, handler));
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        }, null);
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            return CompletableFuture.failedFuture(e);
+        }
+        return future.orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS).whenComplete((outcome, error) -> {
+            if (error instanceof TimeoutException) {
+                // Give the worker back: interrupt a running handler, or free the queue slot of a waiting one
+                task.cancel(true);
+                executor.remove(task);
+            }
+            long latency = System.nanoTime() - enqueued;
+            totalLatencyNanos.add(latency);
+            maxLatencyNanos.accumulateAndGet(latency, Math::max);
+            if (error == null) {
+                completed.increment();
+            } else if (error instanceof TimeoutException) {
+                timedOut.increment();
+            } else {
+                failed.increment();
+            }
+        });
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getActive() {
+        return executor.getActiveCount();
+    }
+
+    @Override
+    public String toString() {
+        long done = completed.sum() + failed.sum() + timedOut.sum();
+        return String.format("%-8s queue=%3d active=%2d completed=%5d failed=%3d timedOut=%3d rejected=%3d"
+                        + " avg=%7.2fms max=%7.2fms",
+                name, getQueueDepth(), getActive(), completed.sum(), failed.sum(),
+                timedOut.sum(), rejected.sum(),
+                done == 0 ? 0.0 : totalLatencyNanos.sum() / (double) done / 1_000_000.0,
+                maxLatencyNanos.get() / 1_000_000.0);
+    }
+
+    void shutdown() {
+        executor.shutdown();
+    }
+}
+
+// Chain of stages built from a linked SupportHandler chain
+class AsyncSupportPipeline implements AutoCloseable {
+    private final List<SupportStage> stages = new ArrayList<>();
+
+    public AsyncSupportPipeline(SupportHandler head, int concurrencyPerStage, int queueCapacity, Duration timeout) {
+        for (SupportHandler handler = head; handler != null; handler = handler.nextHandler) {
+            stages.add(new SupportStage(handler, concurrencyPerStage, queueCapacity, timeout));
+            if (!(handler instanceof SeverityHandler)) {
+                // Opaque handler, it routes the rest of the chain itself
+                break;
+            }
+            if (stages.size() > 10_000) {
+                throw new IllegalArgumentException("Support chain is too long or contains a cycle");
+            }
+        }
+    }
+
+    public CompletableFuture<TicketOutcome> submit(SupportTicket ticket) {
+        for (SupportStage stage : stages) {
+            SupportHandler handler = stage.getHandler();
+            if (!(handler instanceof SeverityHandler)) {
+                return stage.submit(ticket, () -> handler.handleRequest(ticket));
+            }
+            SeverityHandler severityHandler = (SeverityHandler) handler;
+            if (ticket.getSeverity().equals(severityHandler.getSeverity())) {
+                return stage.submit(ticket, () -> severityHandler.handle(ticket));
+            }
+        }
+        if (!stages.isEmpty()) {
+            ((SeverityHandler) stages.get(stages.size() - 1).getHandler()).unhandled(ticket);
+        }
+        return CompletableFuture.completedFuture(new TicketOutcome(ticket, null));
+    }
+
+    public List<SupportStage> getStages() {
+        return stages;
+    }
+
+    @Override
+    public void close() {
+        for (SupportStage stage : stages) {
+            stage.shutdown();
+        }
+    }
+}
+
+// Handler that simulates I/O before answering
+class SlowSupportHandler extends SeverityHandler {
+    private final long delayMillis;
+
+    SlowSupportHandler(String severity, long delayMillis) {
+        super(severity);
+        this.delayMillis = delayMillis;
+    }
+
+    @Override
+    protected void handle(SupportTicket ticket) {
+        try {
+            Thread.sleep(delayMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
+
+// Client
+public class AsyncChainPattern {
+    public static void main(String[] args) {
+        SupportHandler l1Support = new SlowSupportHandler("Low", 5);
+        SupportHandler l2Support = new SlowSupportHandler("Medium", 20);
+        SupportHandler l3Support = new SlowSupportHandler("High", 60);
+        l1Support.setNextHandler(l2Support);
+        l2Support.setNextHandler(l3Support);
+
+        String[] severities = {"Low", "Low", "Low", "Medium", "Medium", "High", "Unknown"};
+        List<CompletableFuture<TicketOutcome>> results = new ArrayList<>();
+        long start = System.nanoTime();
+        try (AsyncSupportPipeline pipeline = new AsyncSupportPipeline(l1Support, 4, 128, Duration.ofSeconds(1))) {
+            for (int i = 0; i < 700; i++) {
+                results.add(pipeline.submit(new SupportTicket(severities[i % severities.length], "Ticket " + i)));
+            }
+            System.out.println("While running:");
+            pipeline.getStages().forEach(stage -> System.out.println("  " + stage));
+
+            int handled = 0;
+            int unhandled = 0;
+            int errors = 0;
+            for (CompletableFuture<TicketOutcome> result : results) {
+                try {
+                    if (result.join().isHandled()) {
+                        handled++;
+                    } else {
+                        unhandled++;
+                    }
+                } catch (RuntimeException e) {
+                    errors++;
+                }
+            }
+            System.out.println("After completion:");
+            pipeline.getStages().forEach(stage -> System.out.println("  " + stage));
+            System.out.printf("handled=%d unhandled=%d errors=%d in %.1f ms%n",
+                    handled, unhandled, errors, (System.nanoTime() - start) / 1_000_000.0);
+        }
+
+        // A stuck level: timed out tickets release their workers instead of holding them for ten seconds each
+        SupportHandler stuck = new SlowSupportHandler("High", 10_000);
+        start = System.nanoTime();
+        try (AsyncSupportPipeline pipeline = new AsyncSupportPipeline(stuck, 2, 16, Duration.ofMillis(100))) {
+            List<CompletableFuture<TicketOutcome>> stuckResults = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                stuckResults.add(pipeline.submit(new SupportTicket("High", "Stuck " + i)));
+            }
+            stuckResults.forEach(result -> result.exceptionally(error -> null).join());
+            System.out.println("Stuck level:");
+            pipeline.getStages().forEach(stage -> System.out.println("  " + stage));
+            System.out.printf("all timed out within %.1f ms%n", (System.nanoTime() - start) / 1_000_000.0);
+        }
+    }
+}
@@ -25,35 +25,41 @@ abstract class SupportHandler {
 }
 
 // 2. Concrete Handlers
-class LevelOneSupport extends SupportHandler {
-    public void handleRequest(SupportTicket ticket) {
-        if (ticket.getSeverity().equals("Low")) {
-            System.out.println("Level 1 support handling ticket: " + ticket.getDescription());
-        } else if (nextHandler != null) {
-            nextHandler.handleRequest(ticket);
-        }
+class LevelOneSupport extends SeverityHandler {
+    public LevelOneSupport() {
+        super("Low");
+    }
+
+    @Override
+    protected void handle(SupportTicket ticket) {
+        System.out.println("Level 1 support handling ticket: " + ticket.getDescription());
     }
 }
 
-class LevelTwoSupport extends SupportHandler {
-    public void handleRequest(SupportTicket ticket) {
-        if (ticket.getSeverity().equals("Medium")) {
-            System.out.println("Level 2 support handling ticket: " + ticket.getDescription());
-        } else if (nextHandler != null) {
-            nextHandler.handleRequest(ticket);
-        }
+class LevelTwoSupport extends SeverityHandler {
+    public LevelTwoSupport() {
+        super("Medium");
+    }
+
+    @Override
+    protected void handle(SupportTicket ticket) {
+        System.out.println("Level 2 support handling ticket: " + ticket.getDescription());
     }
 }
 
-class LevelThreeSupport extends SupportHandler {
-    public void handleRequest(SupportTicket ticket) {
-        if (ticket.getSeverity().equals("High")) {
-            System.out.println("Level 3 support handling ticket: " + ticket.getDescription());
-        } else if (nextHandler != null) {
-            nextHandler.handleRequest(ticket);
-        } else {
-            System.out.println("No handler found for ticket: " + ticket.getDescription());
-        }
+class LevelThreeSupport extends SeverityHandler {
+    public LevelThreeSupport() {
+        super("High");
+    }
+
+    @Override
+    protected void handle(SupportTicket ticket) {
+        System.out.println("Level 3 support handling ticket: " + ticket.getDescription());
+    }
+
+    @Override
+    protected void unhandled(SupportTicket ticket) {
+        System.out.println("No handler found for ticket: " + ticket.getDescription());
     }
 }
 
@@ -0,0 +1,261 @@
+package com.designpatterns.behavioral;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+A queued invoker for the Command pattern. Instead of executing one command inside pressButton(), commands are submitted to
+an executor that drains them in batches on worker threads. Within a batch, a command that supersedes an earlier queued
+command on the same receiver (such as TurnOffLightCommand after TurnOnLightCommand on the same Light) removes the earlier
+one, since only the later effect would be visible anyway. Macro commands group several commands into one unit that is
+executed as a whole and never coalesced.
+Commands are partitioned by receiver, so commands on the same receiver run in submission order on the same worker. A
+macro whose commands all act on one receiver goes to that receiver's worker; commands without a single receiver, such
+as a macro spanning several lights, all share the first worker and are ordered among themselves only.
+ Pros:
+Throughput: Callers only enqueue, batches amortize the hand-off between threads.
+Less Work: Superseded commands are never executed.
+Bounded: Each partition queue has a fixed capacity, producers block when workers fall behind.
+ Cons:
+Asynchronous: Callers no longer know when a command has run.
+Ordering: Commands on different receivers may run in any order relative to each other.
+Mixed Macros: A macro over several receivers may run concurrently with single-receiver commands on those receivers.
+ */
+// Invoker that queues commands and executes them in batches
+class BatchingCommandExecutor implements AutoCloseable {
+    private static final Command END_OF_QUEUE = () -> { };
+    private static final long WORKER_CHECK_MILLIS = 100;
+
+    private final List<BlockingQueue<Command>> partitions = new ArrayList<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private final int batchSize;
+    // Submits hold the read lock, close takes the write lock, so nothing is queued behind the end marker
+    private final ReentrantReadWriteLock gate = new ReentrantReadWriteLock();
+    private boolean closed;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public BatchingCommandExecutor(int workerCount, int queueCapacity, int batchSize) {
+        this.batchSize = batchSize;
+        for (int i = 0; i < workerCount; i++) {
+            BlockingQueue<Command> queue = new ArrayBlockingQueue<>(queueCapacity);
+            partitions.add(queue);
+            Thread worker = new Thread(() -> drain(queue), "command-executor-" + i);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    public void submit(Command command) {
+        Object receiver = receiverOf(command);
+        // Commands without a single receiver share one fixed lane
+        int partition = receiver == null ? 0 : Math.floorMod(System.identityHashCode(receiver), partitions.size());
+        gate.readLock().lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Executor is closed");
+            }
+            enqueue(partition, command);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while submitting a command", e);
+        } finally {
+            gate.readLock().unlock();
+        }
+        submitted.increment();
+    }
+
+    // The one receiver the command acts on, or null if it has none or several
+    private static Object receiverOf(Command command) {
+        if (command instanceof SupersedingCommand) {
+            return ((SupersedingCommand) command).getReceiver();
+        }
+        if (command instanceof MacroCommand) {
+            Object receiver = null;
+            for (Command child : ((MacroCommand) command).getCommands()) {
+                Object childReceiver = receiverOf(child);
+                if (childReceiver == null || (receiver != null && receiver != childReceiver)) {
+                    return null;
+                }
+                receiver = childReceiver;
+            }
+            return receiver;
+        }
+        return null;
+    }
+
+    public long getSubmitted() {
+        return submitted.sum();
+    }
+
+    public long getExecuted() {
+        return executed.sum();
+    }
+
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    // Executes everything submitted so far and stops the workers
+    @Override
+    public void close() {
+        gate.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            gate.writeLock().unlock();
+        }
+        try {
+            for (int i = 0; i < partitions.size(); i++) {
+                try {
+                    enqueue(i, END_OF_QUEUE);
+                } catch (IllegalStateException stopped) {
+                    // The worker is already gone, there is nothing to stop
+                }
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Waits for room in the partition, but fails instead of waiting forever once its worker has stopped
+    private void enqueue(int partition, Command command) throws InterruptedException {
+        BlockingQueue<Command> queue = partitions.get(partition);
+        Thread worker = workers.get(partition);
+        while (!queue.offer(command, WORKER_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (!worker.isAlive()) {
+                throw new IllegalStateException("Command worker " + worker.getName() + " has stopped");
+            }
+        }
+        if (!worker.isAlive() && queue.remove(command)) {
+            throw new IllegalStateException("Command worker " + worker.getName() + " has stopped");
+        }
+    }
+
+    private void drain(BlockingQueue<Command> queue) {
+        List<Command> batch = new ArrayList<>(batchSize);
+        Map<Object, Integer> lastForReceiver = new IdentityHashMap<>();
+        boolean running = true;
+        while (running) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                // Whatever is still queued will never run; producers notice the dead worker and fail
+                List<Command> dropped = new ArrayList<>();
+                queue.drainTo(dropped);
+                dropped.remove(END_OF_QUEUE);
+                failed.add(dropped.size());
+                return;
+            }
+            queue.drainTo(batch, batchSize - 1);
+            int end = batch.indexOf(END_OF_QUEUE);
+            if (end >= 0) {
+                batch.subList(end, batch.size()).clear();
+                running = false;
+            }
+            coalesce(batch, lastForReceiver);
+            for (Command command : batch) {
+                if (command != null) {
+                    execute(command);
+                }
+            }
+            batch.clear();
+            lastForReceiver.clear();
+        }
+    }
+
+    // Nulls out commands superseded later in the same batch. Other commands act as barriers
+    private void coalesce(List<Command> batch, Map<Object, Integer> lastForReceiver) {
+        for (int i = 0; i < batch.size(); i++) {
+            Command command = batch.get(i);
+            if (!(command instanceof SupersedingCommand)) {
+                lastForReceiver.clear();
+                continue;
+            }
+            SupersedingCommand superseding = (SupersedingCommand) command;
+            Integer previous = lastForReceiver.put(superseding.getReceiver(), i);
+            if (previous != null && superseding.supersedes(batch.get(previous))) {
+                batch.set(previous, null);
+                coalesced.increment();
+            }
+        }
+    }
+
+    private void execute(Command command) {
+        try {
+            command.execute();
+            executed.increment();
+        } catch (RuntimeException e) {
+            failed.increment();
+        }
+    }
+}
+
+// Client Class
+public class CommandExecutorPattern {
+    private static final int COMMANDS = 2_000_000;
+
+    public static void main(String[] args) {
+        Light livingRoomLight = new Light();
+        Light kitchenLight = new Light();
+        try (BatchingCommandExecutor executor = new BatchingCommandExecutor(1, 1_024, 256)) {
+            // When both land in the same batch, the first command is superseded by the second one and never runs
+            executor.submit(new TurnOnLightCommand(livingRoomLight));
+            executor.submit(new TurnOffLightCommand(livingRoomLight));
+            executor.submit(new MacroCommand(List.of(
+                    new TurnOnLightCommand(livingRoomLight), new TurnOnLightCommand(kitchenLight))));
+        }
+
+        QuietLight[] lights = new QuietLight[64];
+        Command[] commands = new Command[1_024];
+        for (int i = 0; i < lights.length; i++) {
+            lights[i] = new QuietLight();
+        }
+        for (int i = 0; i < commands.length; i++) {
+            QuietLight light = lights[i % lights.length];
+            commands[i] = i % 3 == 0 ? new TurnOffLightCommand(light) : new TurnOnLightCommand(light);
+        }
+
+        RemoteControl remote = new RemoteControl();
+        long start = System.nanoTime();
+        for (int i = 0; i < COMMANDS; i++) {
+            remote.setCommand(commands[i & (commands.length - 1)]);
+            remote.pressButton();
+        }
+        long directNanos = System.nanoTime() - start;
+
+        BatchingCommandExecutor executor = new BatchingCommandExecutor(4, 16_384, 1_024);
+        start = System.nanoTime();
+        for (int i = 0; i < COMMANDS; i++) {
+            executor.submit(commands[i & (commands.length - 1)]);
+        }
+        executor.close();
+        long batchedNanos = System.nanoTime() - start;
+
+        System.out.printf("pressButton(): %,d commands in %.1f ms (%,.0f commands/s)%n",
+                COMMANDS, directNanos / 1_000_000.0, COMMANDS * 1e9 / directNanos);
+        System.out.printf("executor:      %,d commands in %.1f ms (%,.0f commands/s), executed=%,d coalesced=%,d%n",
+                COMMANDS, batchedNanos / 1_000_000.0, COMMANDS * 1e9 / batchedNanos,
+                executor.getExecuted(), executor.getCoalesced());
+    }
+}
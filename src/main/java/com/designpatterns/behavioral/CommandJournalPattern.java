@@ -0,0 +1,564 @@
+package com.designpatterns.behavioral;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/*
+A write-ahead journal for the Command pattern. Before a command is executed it is serialized into an append-only log
+segment that is memory-mapped from disk, and the command only runs once the log has been forced to storage. Forcing the
+log for every single command would be slow, so concurrent writers are group-committed: a flusher thread waits up to a
+configurable latency budget, or until enough records are pending, and then makes all of them durable with one force.
+On startup the segments are replayed in order to rebuild the receivers, such as Light, after which they are compacted:
+commands superseded by a later command on the same receiver are dropped and the rest is rewritten into a fresh segment.
+Each record is stored as [length][crc32][payload]; a zero length or a bad checksum marks the end of a segment.
+ Pros:
+Durability: An executed command is never lost across a restart.
+Throughput: One force covers every command written during the latency budget.
+Bounded Log: Compaction keeps the log proportional to the number of receivers instead of the number of commands.
+ Cons:
+Latency: Every command waits up to the latency budget before it runs.
+Codec Required: Commands need a serialized form that can be mapped back to live receivers.
+Idempotency: A crash during compaction may replay a command twice, so replayed commands must be idempotent.
+ */
+// Translates commands to bytes and back
+interface CommandCodec {
+    byte[] encode(Command command);
+
+    Command decode(byte[] bytes);
+}
+
+// Codec for the light commands, receivers are looked up by name
+class LightCommandCodec implements CommandCodec {
+    private static final byte TURN_ON = 1;
+    private static final byte TURN_OFF = 2;
+    private static final byte MACRO = 3;
+
+    private final Map<String, Light> lightsByName = new HashMap<>();
+    private final Map<Light, String> namesByLight = new IdentityHashMap<>();
+
+    public LightCommandCodec register(String name, Light light) {
+        lightsByName.put(name, light);
+        namesByLight.put(light, name);
+        return this;
+    }
+
+    @Override
+    public byte[] encode(Command command) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            write(out, command);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public Command decode(byte[] bytes) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            return read(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void write(DataOutputStream out, Command command) throws IOException {
+        if (command instanceof MacroCommand) {
+            List<Command> commands = ((MacroCommand) command).getCommands();
+            out.writeByte(MACRO);
+            out.writeInt(commands.size());
+            for (Command nested : commands) {
+                write(out, nested);
+            }
+        } else if (command instanceof TurnOnLightCommand || command instanceof TurnOffLightCommand) {
+            Light light = (Light) ((SupersedingCommand) command).getReceiver();
+            String name = namesByLight.get(light);
+            if (name == null) {
+                throw new IllegalArgumentException("Light is not registered with the codec");
+            }
+            out.writeByte(command instanceof TurnOnLightCommand ? TURN_ON : TURN_OFF);
+            out.writeUTF(name);
+        } else {
+            throw new IllegalArgumentException("Cannot encode " + command.getClass().getSimpleName());
+        }
+    }
+
+    private Command read(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        if (type == MACRO) {
+            int size = in.readInt();
+            List<Command> commands = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                commands.add(read(in));
+            }
+            return new MacroCommand(commands);
+        }
+        String name = in.readUTF();
+        Light light = lightsByName.get(name);
+        if (light == null) {
+            throw new IllegalStateException("Unknown light in journal: " + name);
+        }
+        return type == TURN_ON ? new TurnOnLightCommand(light) : new TurnOffLightCommand(light);
+    }
+}
+
+// Append-only log of memory-mapped segments with group commit
+class CommandJournal implements AutoCloseable {
+    private static final int HEADER_BYTES = 8;
+
+    private final Path directory;
+    private final CommandCodec codec;
+    private final int segmentBytes;
+    private final long latencyBudgetNanos;
+    private final int maxGroupSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition pending = lock.newCondition();
+    private final Condition durable = lock.newCondition();
+    private final Thread flusher;
+
+    // Guarded by lock
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long segmentIndex;
+    private long writtenSequence;
+    private long durableSequence;
+    private long forces;
+    private boolean recovered;
+    private boolean closed;
+    // First write or force that failed; the journal accepts nothing after it
+    private Exception failure;
+
+    private CommandJournal(Path directory, CommandCodec codec, int segmentBytes, Duration latencyBudget,
+                           int maxGroupSize) {
+        this.directory = directory;
+        this.codec = codec;
+        this.segmentBytes = segmentBytes;
+        this.latencyBudgetNanos = latencyBudget.toNanos();
+        this.maxGroupSize = maxGroupSize;
+        this.flusher = new Thread(this::flushLoop, "command-journal-flusher");
+        this.flusher.setDaemon(true);
+    }
+
+    public static CommandJournal open(Path directory, CommandCodec codec, int segmentBytes,
+                                      Duration latencyBudget, int maxGroupSize) throws IOException {
+        Files.createDirectories(directory);
+        return new CommandJournal(directory, codec, segmentBytes, latencyBudget, maxGroupSize);
+    }
+
+    // Replays every segment in order, compacts them, and opens the journal for appending. Returns the replayed count
+    public long recover(Consumer<Command> replay) throws IOException {
+        lock.lock();
+        try {
+            if (recovered) {
+                throw new IllegalStateException("Journal has already been recovered");
+            }
+            List<Path> segments = listSegments();
+            List<byte[]> records = new ArrayList<>();
+            for (Path path : segments) {
+                readSegment(path, records::add);
+            }
+
+            List<Command> commands = new ArrayList<>(records.size());
+            for (byte[] record : records) {
+                Command command = codec.decode(record);
+                replay.accept(command);
+                commands.add(command);
+            }
+
+            segmentIndex = segments.isEmpty() ? 0 : indexOf(segments.get(segments.size() - 1)) + 1;
+            openSegment();
+            for (Command command : compact(commands)) {
+                write(codec.encode(command));
+            }
+            segment.force();
+            durableSequence = writtenSequence;
+            for (Path path : segments) {
+                Files.delete(path);
+            }
+            recovered = true;
+            flusher.start();
+            return commands.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Writes the command and blocks until it is durable. Returns its sequence number
+    public long append(Command command) {
+        byte[] record = codec.encode(command);
+        if (record.length + HEADER_BYTES + Integer.BYTES > segmentBytes) {
+            throw new IllegalArgumentException("Command does not fit in a journal segment");
+        }
+        lock.lock();
+        try {
+            if (!recovered || closed) {
+                throw new IllegalStateException(closed ? "Journal is closed" : "Journal has not been recovered");
+            }
+            if (failure != null) {
+                throw new IllegalStateException("Journal has failed", failure);
+            }
+            long sequence;
+            try {
+                sequence = write(record);
+            } catch (IOException e) {
+                failure = e;
+                throw new UncheckedIOException(e);
+            } catch (RuntimeException e) {
+                failure = e;
+                throw e;
+            }
+            pending.signal();
+            while (durableSequence < sequence) {
+                if (failure != null) {
+                    throw new IllegalStateException("Journal failed before the command became durable", failure);
+                }
+                if (closed) {
+                    throw new IllegalStateException("Journal closed before the command became durable");
+                }
+                durable.awaitUninterruptibly();
+            }
+            return sequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getWrittenSequence() {
+        lock.lock();
+        try {
+            return writtenSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getForces() {
+        lock.lock();
+        try {
+            return forces;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            pending.signalAll();
+            if (segment != null && failure == null) {
+                segment.force();
+                durableSequence = writtenSequence;
+            }
+            durable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        // The flusher may still be forcing outside the lock, the channel stays open until it is gone
+        if (flusher.isAlive()) {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    flusher.join();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        lock.lock();
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Called with the lock held
+    private long write(byte[] record) throws IOException {
+        if (segment.remaining() < HEADER_BYTES + record.length + Integer.BYTES) {
+            // Make the full segment durable before moving on, so durability follows segment order
+            segment.force();
+            durableSequence = writtenSequence;
+            durable.signalAll();
+            channel.close();
+            segmentIndex++;
+            openSegment();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(record);
+        segment.putInt(record.length);
+        segment.putInt((int) crc.getValue());
+        segment.put(record);
+        return ++writtenSequence;
+    }
+
+    private void flushLoop() {
+        lock.lock();
+        try {
+            while (!closed) {
+                if (writtenSequence == durableSequence) {
+                    pending.awaitUninterruptibly();
+                    continue;
+                }
+                // Let more writers join the group until the budget is spent or the group is full
+                long deadline = System.nanoTime() + latencyBudgetNanos;
+                long remaining;
+                while (!closed && writtenSequence - durableSequence < maxGroupSize
+                        && (remaining = deadline - System.nanoTime()) > 0) {
+                    try {
+                        pending.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (closed) {
+                    return;
+                }
+                // Force without holding the lock so writers can keep filling the segment meanwhile
+                long target = writtenSequence;
+                MappedByteBuffer toForce = segment;
+                RuntimeException error = null;
+                lock.unlock();
+                try {
+                    toForce.force();
+                } catch (RuntimeException e) {
+                    error = e;
+                } finally {
+                    lock.lock();
+                }
+                if (error != null) {
+                    // Fail the waiting writers instead of leaving them parked with nobody left to wake them
+                    failure = error;
+                    durable.signalAll();
+                    return;
+                }
+                forces++;
+                durableSequence = Math.max(durableSequence, target);
+                durable.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void openSegment() throws IOException {
+        Path path = directory.resolve(String.format("segment-%016d.log", segmentIndex));
+        channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().matches("segment-\\d{16}\\.log"))
+                    .sorted(Comparator.comparingLong(CommandJournal::indexOf))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static long indexOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring("segment-".length(), name.length() - ".log".length()));
+    }
+
+    // Reads records up to the first empty or torn one
+    private static void readSegment(Path path, Consumer<byte[]> records) throws IOException {
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = file.map(FileChannel.MapMode.READ_ONLY, 0, file.size());
+            while (buffer.remaining() >= HEADER_BYTES) {
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining()) {
+                    return;
+                }
+                byte[] record = new byte[length];
+                buffer.get(record);
+                CRC32 crc = new CRC32();
+                crc.update(record);
+                if ((int) crc.getValue() != checksum) {
+                    return;
+                }
+                records.accept(record);
+            }
+        }
+    }
+
+    // Drops commands superseded later on the same receiver. Other commands are kept and act as barriers
+    private static List<Command> compact(List<Command> commands) {
+        boolean[] dropped = new boolean[commands.size()];
+        Map<Object, Integer> lastForReceiver = new IdentityHashMap<>();
+        for (int i = 0; i < commands.size(); i++) {
+            Command command = commands.get(i);
+            if (!(command instanceof SupersedingCommand)) {
+                lastForReceiver.clear();
+                continue;
+            }
+            SupersedingCommand superseding = (SupersedingCommand) command;
+            Integer previous = lastForReceiver.put(superseding.getReceiver(), i);
+            if (previous != null && superseding.supersedes(commands.get(previous))) {
+                dropped[previous] = true;
+            }
+        }
+        List<Command> kept = new ArrayList<>();
+        for (int i = 0; i < commands.size(); i++) {
+            if (!dropped[i]) {
+                kept.add(commands.get(i));
+            }
+        }
+        return kept;
+    }
+}
+
+// Invoker that journals every command before executing it, executing in journal order
+class JournalingCommandInvoker {
+    private final CommandJournal journal;
+    private final Object turn = new Object();
+    // Sequence of the last executed command, guarded by turn
+    private long executedSequence;
+    // Set when an append failed; its sequence may never arrive, so later commands must not wait for it
+    private RuntimeException failure;
+
+    // The journal must be recovered and only be appended to through this invoker
+    public JournalingCommandInvoker(CommandJournal journal) {
+        this.journal = journal;
+        this.executedSequence = journal.getWrittenSequence();
+    }
+
+    public void execute(Command command) {
+        long sequence;
+        try {
+            sequence = journal.append(command);
+        } catch (RuntimeException e) {
+            synchronized (turn) {
+                failure = e;
+                turn.notifyAll();
+            }
+            throw e;
+        }
+        boolean interrupted = false;
+        synchronized (turn) {
+            while (executedSequence != sequence - 1) {
+                if (failure != null) {
+                    throw new IllegalStateException("An earlier command failed to journal, not executing", failure);
+                }
+                try {
+                    turn.wait();
+                } catch (InterruptedException e) {
+                    // The command is journaled, skipping it would stall every command after it
+                    interrupted = true;
+                }
+            }
+            try {
+                command.execute();
+            } finally {
+                executedSequence = sequence;
+                turn.notifyAll();
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
+
+// Client Class
+public class CommandJournalPattern {
+    public static void main(String[] args) throws Exception {
+        Path directory = Files.createTempDirectory("command-journal");
+        try {
+            QuietLight livingRoomLight = new QuietLight();
+            QuietLight kitchenLight = new QuietLight();
+            LightCommandCodec codec = new LightCommandCodec()
+                    .register("living-room", livingRoomLight)
+                    .register("kitchen", kitchenLight);
+
+            try (CommandJournal journal = CommandJournal.open(directory, codec, 64 * 1024,
+                    Duration.ofMillis(2), 256)) {
+                journal.recover(command -> { });
+                JournalingCommandInvoker invoker = new JournalingCommandInvoker(journal);
+
+                Thread[] writers = new Thread[32];
+                long start = System.nanoTime();
+                for (int t = 0; t < writers.length; t++) {
+                    int id = t;
+                    writers[t] = new Thread(() -> {
+                        for (int i = 0; i < 500; i++) {
+                            Light light = (i + id) % 2 == 0 ? livingRoomLight : kitchenLight;
+                            invoker.execute(i % 3 == 0 ? new TurnOffLightCommand(light) : new TurnOnLightCommand(light));
+                        }
+                    });
+                    writers[t].start();
+                }
+                for (Thread writer : writers) {
+                    writer.join();
+                }
+                invoker.execute(new MacroCommand(List.of(
+                        new TurnOnLightCommand(livingRoomLight), new TurnOffLightCommand(kitchenLight))));
+                long elapsed = System.nanoTime() - start;
+                System.out.printf("Journaled %,d commands with %,d forces in %.1f ms%n",
+                        journal.getWrittenSequence(), journal.getForces(), elapsed / 1_000_000.0);
+            }
+            try (Stream<Path> files = Files.list(directory)) {
+                System.out.println("Segments before restart: " + files.count());
+            }
+            System.out.println("Before restart: living room on=" + livingRoomLight.isOn()
+                    + ", kitchen on=" + kitchenLight.isOn());
+
+            // Simulated restart with fresh receivers
+            QuietLight restoredLivingRoom = new QuietLight();
+            QuietLight restoredKitchen = new QuietLight();
+            LightCommandCodec restoredCodec = new LightCommandCodec()
+                    .register("living-room", restoredLivingRoom)
+                    .register("kitchen", restoredKitchen);
+            try (CommandJournal journal = CommandJournal.open(directory, restoredCodec, 64 * 1024,
+                    Duration.ofMillis(2), 256)) {
+                long replayed = journal.recover(Command::execute);
+                System.out.println("Replayed " + replayed + " commands, compacted to "
+                        + journal.getWrittenSequence());
+            }
+            System.out.println("After restart:  living room on=" + restoredLivingRoom.isOn()
+                    + ", kitchen on=" + restoredKitchen.isOn());
+        } finally {
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+}
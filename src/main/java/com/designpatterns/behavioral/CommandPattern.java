@@ -22,18 +22,27 @@ interface Command {
 
 // Receiver Class
 class Light {
+    private volatile boolean on;
+
     public void turnOn() {
+        on = true;
         System.out.println("The light is on");
     }
 
     public void turnOff() {
+        on = false;
         System.out.println("The light is off");
     }
+
+    public boolean isOn() {
+        return on;
+    }
 }
 
 // Concrete Command for turning on the light
-class TurnOnLightCommand implements Command {
+class TurnOnLightCommand implements SupersedingCommand, UndoableCommand {
     private Light light;
+    private boolean wasOn;
 
     public TurnOnLightCommand(Light light) {
         this.light = light;
@@ -41,13 +50,41 @@ class TurnOnLightCommand implements Command {
 
     @Override
     public void execute() {
+        wasOn = light.isOn();
         light.turnOn();
     }
+
+    // Restores the power state the light had before execute, which may already have been on
+    @Override
+    public void undo() {
+        if (wasOn) {
+            light.turnOn();
+        } else {
+            light.turnOff();
+        }
+    }
+
+    public boolean wasOn() {
+        return wasOn;
+    }
+
+    @Override
+    public Object getReceiver() {
+        return light;
+    }
+
+    // Switching a light on or off overrides whatever was last done to its power
+    @Override
+    public boolean supersedes(Command earlier) {
+        return (earlier instanceof TurnOnLightCommand || earlier instanceof TurnOffLightCommand)
+                && ((SupersedingCommand) earlier).getReceiver() == light;
+    }
 }
 
 // Concrete Command for turning off the light
-class TurnOffLightCommand implements Command {
+class TurnOffLightCommand implements SupersedingCommand, UndoableCommand {
     private Light light;
+    private boolean wasOn;
 
     public TurnOffLightCommand(Light light) {
         this.light = light;
@@ -55,8 +92,34 @@ class TurnOffLightCommand implements Command {
 
     @Override
     public void execute() {
+        wasOn = light.isOn();
         light.turnOff();
     }
+
+    // Restores the power state the light had before execute, which may already have been off
+    @Override
+    public void undo() {
+        if (wasOn) {
+            light.turnOn();
+        } else {
+            light.turnOff();
+        }
+    }
+
+    public boolean wasOn() {
+        return wasOn;
+    }
+
+    @Override
+    public Object getReceiver() {
+        return light;
+    }
+
+    @Override
+    public boolean supersedes(Command earlier) {
+        return (earlier instanceof TurnOnLightCommand || earlier instanceof TurnOffLightCommand)
+                && ((SupersedingCommand) earlier).getReceiver() == light;
+    }
 }
 
 // Invoker Class
@@ -0,0 +1,128 @@
+package com.designpatterns.behavioral;
+
+import java.util.Random;
+
+/*
+A compiled variation of the Chain of Responsibility. A configured chain of SeverityHandlers is walked once and turned into
+a dispatch table from severity to the first handler that accepts it, so routing a ticket is a single hash lookup instead
+of one String comparison and one recursive call per level. Semantics are kept: the first handler for a severity wins,
+tickets nobody accepts reach the unhandled() fallthrough of the last handler, and a handler the compiler cannot see into
+(any SupportHandler that is not a SeverityHandler) simply receives every ticket the handlers before it did not take.
+ Pros:
+Constant-time Routing: Dispatch cost no longer grows with the length of the chain.
+No Deep Recursion: Long chains no longer build one stack frame per level.
+Drop-in: The compiled chain is itself a SupportHandler, and handlers appended to it are compiled as well.
+ Cons:
+Snapshot: Changes made to the linked chain after compiling are not seen, the chain has to be compiled again.
+Static Handlers Only: Handlers whose decision depends on more than the severity stop the compilation at that point,
+and nothing can be appended to a compiled chain that contains one.
+ */
+// Quiet handler used for benchmarking long chains
+class CountingSupportHandler extends SeverityHandler {
+    private long handled;
+
+    CountingSupportHandler(String severity) {
+        super(severity);
+    }
+
+    @Override
+    protected void handle(SupportTicket ticket) {
+        handled++;
+    }
+
+    public long getHandled() {
+        return handled;
+    }
+}
+
+// Client
+public class CompiledChainPattern {
+    private static final int TICKETS = 20_000;
+    private static final int ROUNDS = 50;
+
+    public static void main(String[] args) {
+        SupportHandler l1Support = new LevelOneSupport();
+        SupportHandler l2Support = new LevelTwoSupport();
+        SupportHandler l3Support = new LevelThreeSupport();
+        l1Support.setNextHandler(l2Support);
+        l2Support.setNextHandler(l3Support);
+
+        SupportHandler compiled = CompiledSupportChain.compile(l1Support);
+        compiled.handleRequest(new SupportTicket("Low", "Password reset"));
+        compiled.handleRequest(new SupportTicket("Medium", "Software installation issue"));
+        compiled.handleRequest(new SupportTicket("High", "Server is down"));
+        compiled.handleRequest(new SupportTicket("Critical", "Data center on fire"));
+        compiled.setNextHandler(new SeverityHandler("Critical") {
+            @Override
+            protected void handle(SupportTicket ticket) {
+                System.out.println("Incident response handling ticket: " + ticket.getDescription());
+            }
+        });
+        compiled.handleRequest(new SupportTicket("Critical", "Data center on fire"));
+
+        // A handler the compiler cannot see into forwards on its own, so the compiled chain cannot be extended past it
+        SupportHandler triage = new SupportHandler() {
+            @Override
+            public void handleRequest(SupportTicket ticket) {
+                System.out.println("Triage looked at ticket: " + ticket.getDescription());
+                if (nextHandler != null) {
+                    nextHandler.handleRequest(ticket);
+                }
+            }
+        };
+        SupportHandler level1 = new LevelOneSupport();
+        level1.setNextHandler(triage);
+        triage.setNextHandler(new LevelTwoSupport());
+        SupportHandler withTriage = CompiledSupportChain.compile(level1);
+        try {
+            withTriage.setNextHandler(new LevelThreeSupport());
+        } catch (IllegalArgumentException e) {
+            System.out.println("Append rejected: " + e.getMessage());
+        }
+        withTriage.handleRequest(new SupportTicket("Medium", "Printer jam"));
+
+        System.out.println();
+        System.out.printf("%8s %16s %16s%n", "length", "linked ns/op", "compiled ns/op");
+        for (int length : new int[]{3, 10, 50, 100, 500}) {
+            benchmark(length);
+        }
+    }
+
+    private static void benchmark(int length) {
+        CountingSupportHandler[] handlers = new CountingSupportHandler[length];
+        for (int i = 0; i < length; i++) {
+            handlers[i] = new CountingSupportHandler("Severity-" + i);
+            if (i > 0) {
+                handlers[i - 1].setNextHandler(handlers[i]);
+            }
+        }
+        SupportHandler compiled = CompiledSupportChain.compile(handlers[0]);
+
+        // Uniform over the chain plus a share of tickets nobody handles
+        Random random = new Random(42);
+        SupportTicket[] tickets = new SupportTicket[TICKETS];
+        for (int i = 0; i < TICKETS; i++) {
+            int level = random.nextInt(length + length / 10 + 1);
+            tickets[i] = new SupportTicket("Severity-" + level, "Ticket " + i);
+        }
+
+        run(handlers[0], tickets);
+        run(compiled, tickets);
+        long linkedNanos = run(handlers[0], tickets);
+        long compiledNanos = run(compiled, tickets);
+
+        long operations = (long) TICKETS * ROUNDS;
+        System.out.printf("%8d %16.1f %16.1f%n", length,
+                (double) linkedNanos / operations, (double) compiledNanos / operations);
+    }
+
+    private static long run(SupportHandler chain, SupportTicket[] tickets) {
+        long start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            for (SupportTicket ticket : tickets) {
+                chain.handleRequest(ticket);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+}
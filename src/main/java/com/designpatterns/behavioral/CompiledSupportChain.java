@@ -0,0 +1,94 @@
+package com.designpatterns.behavioral;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+// Dispatch table built from a linked chain, see CompiledChainPattern
+final class CompiledSupportChain extends SupportHandler {
+    private final SupportHandler head;
+    private Map<String, SeverityHandler> table;
+    // First handler the compiler could not see into, receives the tickets not matched by the table
+    private SupportHandler rest;
+    // Last handler of a fully compiled chain, owns the fallthrough for unhandled tickets
+    private SeverityHandler last;
+
+    private CompiledSupportChain(SupportHandler head) {
+        this.head = head;
+        rebuild();
+    }
+
+    public static CompiledSupportChain compile(SupportHandler head) {
+        return new CompiledSupportChain(head);
+    }
+
+    public int size() {
+        return table.size();
+    }
+
+    // Appends a chain behind the compiled one, its handlers are compiled into the same table. Rejected when the compiled
+    // chain ends in a handler the compiler cannot see into, since that handler decides on its own where tickets go next
+    @Override
+    public void setNextHandler(SupportHandler nextHandler) {
+        SupportHandler previous = this.nextHandler;
+        super.setNextHandler(nextHandler);
+        try {
+            rebuild();
+        } catch (IllegalArgumentException e) {
+            super.setNextHandler(previous);
+            throw e;
+        }
+    }
+
+    private void rebuild() {
+        Map<String, SeverityHandler> table = new HashMap<>();
+        Set<SupportHandler> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        SeverityHandler last = null;
+        SupportHandler handler = head;
+        boolean appended = false;
+        while (true) {
+            if (handler == null && !appended) {
+                appended = true;
+                handler = nextHandler;
+                continue;
+            }
+            if (handler == this || (handler != null && !visited.add(handler))) {
+                throw new IllegalArgumentException("Support chain contains a cycle");
+            }
+            if (!(handler instanceof SeverityHandler)) {
+                if (handler != null && !appended && nextHandler != null) {
+                    throw new IllegalArgumentException("Cannot append behind " + handler.getClass().getName()
+                            + ", which is not a SeverityHandler");
+                }
+                break;
+            }
+            SeverityHandler severityHandler = (SeverityHandler) handler;
+            table.putIfAbsent(severityHandler.getSeverity(), severityHandler);
+            last = severityHandler;
+            handler = handler.nextHandler;
+        }
+        this.table = table;
+        this.rest = handler;
+        this.last = handler == null ? last : null;
+    }
+
+    // Handler the ticket would be given to, without handling it. Null when it falls through unhandled
+    SupportHandler route(SupportTicket ticket) {
+        SeverityHandler handler = table.get(ticket.getSeverity());
+        return handler != null ? handler : rest;
+    }
+
+    @Override
+    public void handleRequest(SupportTicket ticket) {
+        SeverityHandler handler = table.get(ticket.getSeverity());
+        if (handler != null) {
+            handler.handle(ticket);
+        } else if (rest != null) {
+            rest.handleRequest(ticket);
+        } else if (last != null) {
+            last.unhandled(ticket);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.designpatterns.behavioral;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/*
+A concurrent aggregate for the Iterator pattern. Elements are appended into fixed-size chunks that are never moved or
+modified once written, and the number of published elements is the aggregate's version. An iterator reads the version
+once when it is created and walks exactly that many elements, so it sees a consistent snapshot no matter how many
+elements are appended while it runs, without copying anything and without taking a lock. Writers take a lock among
+themselves, fill the next slot and then publish the new version with a single volatile write.
+When the chunk directory fills up it is copied into a larger one; readers holding the old directory are unaffected
+because the chunks themselves are shared.
+ Pros:
+Non-blocking Readers: Iteration never waits for writers and never copies the elements.
+Consistent Snapshots: An iterator never observes a partially appended element or elements added after it started.
+No Element Copies: Growing only copies the small chunk directory, never the elements.
+ Cons:
+Append Only: Elements cannot be removed or replaced.
+Serialized Writers: Concurrent writers still take turns appending.
+ */
+// Concrete Aggregate safe for concurrent appends and snapshot iteration
+class ConcurrentAggregate<T> implements Aggregate<T> {
+    private static final int CHUNK_SHIFT = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    // Only replaced under writeLock, always published before the version that needs it
+    private volatile Object[][] chunks = new Object[4][];
+    private volatile int version;
+
+    public void addItem(T item) {
+        writeLock.lock();
+        try {
+            int index = version;
+            int chunk = index >>> CHUNK_SHIFT;
+            Object[][] directory = chunks;
+            if (chunk == directory.length) {
+                directory = Arrays.copyOf(directory, directory.length * 2);
+                chunks = directory;
+            }
+            if (directory[chunk] == null) {
+                directory[chunk] = new Object[CHUNK_SIZE];
+            }
+            directory[chunk][index & CHUNK_MASK] = item;
+            // Publishes the element, and any new chunk or directory, to readers
+            version = index + 1;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Number of elements visible to an iterator created now
+    public int getVersion() {
+        return version;
+    }
+
+    @Override
+    public Iterator<T> createIterator() {
+        int size = version;
+        return new SnapshotIterator<>(chunks, size);
+    }
+
+    // Iterator over the first size elements of a chunk directory
+    private static final class SnapshotIterator<T> implements Iterator<T> {
+        private final Object[][] chunks;
+        private final int size;
+        private int position;
+
+        SnapshotIterator(Object[][] chunks, int size) {
+            this.chunks = chunks;
+            this.size = size;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return position < size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T next() {
+            if (position >= size) {
+                throw new NoSuchElementException("No more elements in the collection");
+            }
+            int index = position++;
+            return (T) chunks[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+        }
+    }
+}
+
+// Client code
+public class ConcurrentIteratorPattern {
+    private static final int WRITERS = 2;
+    private static final int READERS = 4;
+    private static final int APPENDS_PER_WRITER = 500_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        ConcurrentAggregate<String> collection = new ConcurrentAggregate<>();
+        collection.addItem("Item 1");
+        collection.addItem("Item 2");
+        Iterator<String> snapshot = collection.createIterator();
+        collection.addItem("Item 3");
+        while (snapshot.hasNext()) {
+            System.out.println(snapshot.next());
+        }
+
+        ConcurrentAggregate<long[]> concurrent = new ConcurrentAggregate<>();
+        stress("snapshot iterators", concurrent::addItem, concurrent::createIterator);
+
+        // Baseline: a plain aggregate guarded by a lock, each reader copies the list before iterating
+        ConcreteAggregate<long[]> plain = new ConcreteAggregate<>();
+        stress("locked copy per reader", item -> {
+            synchronized (plain) {
+                plain.addItem(item);
+            }
+        }, () -> {
+            List<long[]> copy;
+            synchronized (plain) {
+                copy = new ArrayList<>(plain.getItems());
+            }
+            return new ConcreteIterator<>(copy);
+        });
+    }
+
+    // Writers append (writer, sequence) pairs, readers check that each snapshot holds a gap-free prefix per writer
+    private static void stress(String name, Consumer<long[]> appender, Supplier<Iterator<long[]>> snapshots)
+            throws InterruptedException {
+        AtomicInteger writersLeft = new AtomicInteger(WRITERS);
+        AtomicReference<String> violation = new AtomicReference<>();
+        LongAdder snapshotCount = new LongAdder();
+        LongAdder elementsRead = new LongAdder();
+        List<Thread> threads = new ArrayList<>();
+        long start = System.nanoTime();
+
+        for (int w = 0; w < WRITERS; w++) {
+            long writer = w;
+            threads.add(new Thread(() -> {
+                for (long sequence = 0; sequence < APPENDS_PER_WRITER; sequence++) {
+                    appender.accept(new long[]{writer, sequence});
+                }
+                writersLeft.decrementAndGet();
+            }));
+        }
+        for (int r = 0; r < READERS; r++) {
+            threads.add(new Thread(() -> {
+                while (writersLeft.get() > 0) {
+                    long[] expected = new long[WRITERS];
+                    Iterator<long[]> iterator = snapshots.get();
+                    long read = 0;
+                    while (iterator.hasNext()) {
+                        long[] item = iterator.next();
+                        if (item == null || item[1] != expected[(int) item[0]]++) {
+                            violation.compareAndSet(null, "inconsistent snapshot after " + read + " elements");
+                        }
+                        read++;
+                    }
+                    snapshotCount.increment();
+                    elementsRead.add(read);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-24s %.2f s appends/s=%,11.0f snapshots/s=%,9.0f elements read/s=%,13.0f %s%n",
+                name, seconds, WRITERS * APPENDS_PER_WRITER / seconds, snapshotCount.sum() / seconds,
+                elementsRead.sum() / seconds, violation.get() == null ? "consistent" : violation.get());
+    }
+}
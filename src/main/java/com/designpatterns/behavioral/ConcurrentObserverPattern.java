@@ -0,0 +1,364 @@
+package com.designpatterns.behavioral;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+A thread-safe subject for the Observer pattern. Observers are kept in an array that is copied on every attach or
+detach and published through a volatile field, so notifying iterates a plain array without locks and an observer
+attached during a notification simply takes part in the next one.
+Notifications can be delivered in three ways. SYNCHRONOUS calls every observer on the notifying thread, like the
+original subject. PER_OBSERVER gives every observer its own queue, drained by a short task on a shared pool, so a slow
+observer only delays its own updates and each observer sees messages in the order they were queued for it. GLOBAL
+sends all messages through one queue and delivers each message to all observers, in parallel, before starting the
+next one, so every observer sees the same order and nobody runs ahead.
+In the asynchronous modes an observer that throws only loses that update: the failure is counted and delivery goes on.
+ Pros:
+Race Free: Attaching and detaching is safe while notifications are running.
+Isolation: With PER_OBSERVER, a slow observer no longer blocks the others or the notifying thread.
+Configurable Ordering: Choose between independent observers and one global order.
+ Cons:
+Copy on Write: Attaching and detaching copy the whole observer array.
+Unbounded Queues: Asynchronous modes queue updates for observers that cannot keep up.
+Lock Step: With GLOBAL, the slowest observer sets the pace for everyone.
+ */
+// How a ConcurrentSubject delivers notifications
+enum DeliveryMode {
+    SYNCHRONOUS, PER_OBSERVER, GLOBAL
+}
+
+// ConcreteSubject that is safe to use from many threads and can deliver asynchronously
+class ConcurrentSubject implements Subject, AutoCloseable {
+    private static final int DRAIN_BATCH = 64;
+    private static final int GLOBAL_CHUNK = 256;
+
+    // An observer together with its pending updates in PER_OBSERVER mode
+    private final class Subscription {
+        final Observer observer;
+        final ConcurrentLinkedQueue<String> pending = new ConcurrentLinkedQueue<>();
+        final AtomicBoolean scheduled = new AtomicBoolean();
+
+        Subscription(Observer observer) {
+            this.observer = observer;
+        }
+
+        void enqueue(String message) {
+            pending.add(message);
+            if (scheduled.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+
+        // Delivers up to one batch, then yields the pool thread to other observers
+        void drain() {
+            try {
+                for (int i = 0; i < DRAIN_BATCH; i++) {
+                    String message = pending.poll();
+                    if (message == null) {
+                        break;
+                    }
+                    deliver(observer, message);
+                }
+            } finally {
+                scheduled.set(false);
+                if (!pending.isEmpty() && scheduled.compareAndSet(false, true)) {
+                    executor.execute(this::drain);
+                }
+            }
+        }
+    }
+
+    private final DeliveryMode mode;
+    private final int threads;
+    private final ExecutorService executor;
+    private final ConcurrentLinkedQueue<String> globalQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean globalScheduled = new AtomicBoolean();
+    private final AtomicLong pendingDeliveries = new AtomicLong();
+    private final AtomicLong failedDeliveries = new AtomicLong();
+    private volatile Subscription[] subscriptions = new Subscription[0];
+    private volatile String message;
+
+    public ConcurrentSubject(DeliveryMode mode, int threads) {
+        this.mode = mode;
+        this.threads = threads;
+        this.executor = mode == DeliveryMode.SYNCHRONOUS ? null : Executors.newWorkStealingPool(threads);
+    }
+
+    @Override
+    public synchronized void attach(Observer observer) {
+        Subscription[] current = subscriptions;
+        Subscription[] next = Arrays.copyOf(current, current.length + 1);
+        next[current.length] = new Subscription(observer);
+        subscriptions = next;
+    }
+
+    @Override
+    public synchronized void detach(Observer observer) {
+        Subscription[] current = subscriptions;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i].observer == observer) {
+                Subscription[] next = new Subscription[current.length - 1];
+                System.arraycopy(current, 0, next, 0, i);
+                System.arraycopy(current, i + 1, next, i, current.length - i - 1);
+                subscriptions = next;
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void notifyObservers() {
+        publish(message);
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+        publish(message);
+    }
+
+    public int getObserverCount() {
+        return subscriptions.length;
+    }
+
+    // Updates queued but not yet delivered
+    public long getPendingDeliveries() {
+        return pendingDeliveries.get();
+    }
+
+    // Updates whose observer threw
+    public long getFailedDeliveries() {
+        return failedDeliveries.get();
+    }
+
+    // Waits until every queued update has been delivered
+    public void awaitDelivered() {
+        while (pendingDeliveries.get() > 0) {
+            LockSupport.parkNanos(100_000);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            awaitDelivered();
+            executor.shutdown();
+            try {
+                executor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void publish(String message) {
+        Subscription[] targets = subscriptions;
+        switch (mode) {
+            case SYNCHRONOUS:
+                for (Subscription subscription : targets) {
+                    subscription.observer.update(message);
+                }
+                break;
+            case PER_OBSERVER:
+                pendingDeliveries.addAndGet(targets.length);
+                for (Subscription subscription : targets) {
+                    subscription.enqueue(message);
+                }
+                break;
+            case GLOBAL:
+                // Counted per observer at dispatch time, so the message itself counts until it is dispatched
+                pendingDeliveries.incrementAndGet();
+                globalQueue.add(message);
+                if (globalScheduled.compareAndSet(false, true)) {
+                    executor.execute(this::dispatchGlobal);
+                }
+                break;
+        }
+    }
+
+    // Runs on one pool thread at a time; fans each message out in chunks and waits before starting the next
+    private void dispatchGlobal() {
+        try {
+            String next;
+            while ((next = globalQueue.poll()) != null) {
+                dispatch(next);
+            }
+        } finally {
+            globalScheduled.set(false);
+            // A message queued after the last poll must not be left without a dispatcher
+            if (!globalQueue.isEmpty() && globalScheduled.compareAndSet(false, true)) {
+                executor.execute(this::dispatchGlobal);
+            }
+        }
+    }
+
+    private void dispatch(String message) {
+        Subscription[] targets = subscriptions;
+        pendingDeliveries.addAndGet(targets.length - 1);
+        int chunks = (targets.length + GLOBAL_CHUNK - 1) / GLOBAL_CHUNK;
+        AtomicInteger nextChunk = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(chunks);
+        Runnable deliverChunks = () -> {
+            int chunk;
+            while ((chunk = nextChunk.getAndIncrement()) < chunks) {
+                try {
+                    deliverRange(targets, chunk * GLOBAL_CHUNK, message);
+                } finally {
+                    done.countDown();
+                }
+            }
+        };
+        for (int helper = 1; helper < Math.min(chunks, threads); helper++) {
+            executor.execute(deliverChunks);
+        }
+        // Helping as well means the message completes even if no other pool thread is free
+        deliverChunks.run();
+        // The next message must not start while helpers still deliver this one, so an interrupt only waits
+        boolean interrupted = false;
+        while (true) {
+            try {
+                done.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void deliverRange(Subscription[] targets, int start, String message) {
+        int end = Math.min(start + GLOBAL_CHUNK, targets.length);
+        for (int i = start; i < end; i++) {
+            deliver(targets[i].observer, message);
+        }
+    }
+
+    private void deliver(Observer observer, String message) {
+        try {
+            observer.update(message);
+        } catch (RuntimeException e) {
+            // The other observers still get the update
+            failedDeliveries.incrementAndGet();
+        } finally {
+            pendingDeliveries.decrementAndGet();
+        }
+    }
+}
+
+// Observer that takes a fixed time for every update
+class SlowObserver implements Observer {
+    private final long delayNanos;
+
+    SlowObserver(long delayNanos) {
+        this.delayNanos = delayNanos;
+    }
+
+    @Override
+    public void update(String message) {
+        LockSupport.parkNanos(delayNanos);
+    }
+}
+
+// Client code
+public class ConcurrentObserverPattern {
+    private static final int OBSERVERS = 10_000;
+    private static final int MESSAGES = 500;
+
+    public static void main(String[] args) {
+        try (ConcurrentSubject subject = new ConcurrentSubject(DeliveryMode.PER_OBSERVER, 2)) {
+            Observer observer1 = new ConcreteObserver("Observer 1");
+            Observer observer2 = new ConcreteObserver("Observer 2");
+            subject.attach(observer1);
+            subject.attach(observer2);
+            subject.setMessage("Hello Observers!");
+            subject.awaitDelivered();
+            subject.detach(observer1);
+            subject.setMessage("Another update!");
+        }
+
+        // An observer that throws must not stall delivery to the others or the subject's close
+        for (DeliveryMode mode : new DeliveryMode[]{DeliveryMode.PER_OBSERVER, DeliveryMode.GLOBAL}) {
+            try (ConcurrentSubject subject = new ConcurrentSubject(mode, 2)) {
+                CountingObserver counter = new CountingObserver();
+                subject.attach(message -> {
+                    throw new IllegalStateException("cannot handle " + message);
+                });
+                subject.attach(counter);
+                for (int i = 0; i < 100; i++) {
+                    subject.setMessage("update " + i);
+                }
+                subject.awaitDelivered();
+                System.out.printf("%s with a failing observer: delivered %d, failed %d%n", mode,
+                        counter.getUpdates(), subject.getFailedDeliveries());
+            }
+        }
+
+        System.out.printf("%-14s %14s %16s %20s%n", "delivery", "messages/s", "updates/s", "publish with slow (us)");
+        baseline();
+        for (DeliveryMode mode : DeliveryMode.values()) {
+            benchmark(mode);
+        }
+    }
+
+    // The original subject for comparison; single-threaded only
+    private static void baseline() {
+        ConcreteSubject subject = new ConcreteSubject();
+        CountingObserver[] observers = new CountingObserver[OBSERVERS];
+        for (int i = 0; i < OBSERVERS; i++) {
+            observers[i] = new CountingObserver();
+            subject.attach(observers[i]);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MESSAGES; i++) {
+            subject.setMessage("update " + i);
+        }
+        print("ArrayList", System.nanoTime() - start, -1);
+    }
+
+    private static void benchmark(DeliveryMode mode) {
+        try (ConcurrentSubject subject = new ConcurrentSubject(mode, 4)) {
+            CountingObserver[] observers = new CountingObserver[OBSERVERS];
+            for (int i = 0; i < OBSERVERS; i++) {
+                observers[i] = new CountingObserver();
+                subject.attach(observers[i]);
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < MESSAGES; i++) {
+                subject.setMessage("update " + i);
+            }
+            subject.awaitDelivered();
+            long elapsed = System.nanoTime() - start;
+
+            // How long the notifying thread is held up by one observer that takes 2 ms per update
+            subject.attach(new SlowObserver(2_000_000));
+            long publishStart = System.nanoTime();
+            for (int i = 0; i < 10; i++) {
+                subject.setMessage("slow " + i);
+            }
+            long publishNanos = (System.nanoTime() - publishStart) / 10;
+            subject.awaitDelivered();
+
+            for (CountingObserver observer : observers) {
+                if (observer.getUpdates() != MESSAGES + 10) {
+                    throw new IllegalStateException(mode + " lost updates: " + observer.getUpdates());
+                }
+            }
+            print(mode.name(), elapsed, publishNanos);
+        }
+    }
+
+    private static void print(String name, long nanos, long publishWithSlowNanos) {
+        double seconds = nanos / 1e9;
+        System.out.printf("%-14s %,14.0f %,16.0f %20s%n", name, MESSAGES / seconds, (double) MESSAGES * OBSERVERS / seconds,
+                publishWithSlowNanos < 0 ? "-" : String.format("%,.1f", publishWithSlowNanos / 1e3));
+    }
+}
@@ -0,0 +1,17 @@
+package com.designpatterns.behavioral;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Observer that only counts its updates, see ConcurrentObserverPattern
+class CountingObserver implements Observer {
+    private final AtomicLong updates = new AtomicLong();
+
+    @Override
+    public void update(String message) {
+        updates.incrementAndGet();
+    }
+
+    public long getUpdates() {
+        return updates.get();
+    }
+}
@@ -0,0 +1,19 @@
+package com.designpatterns.behavioral;
+
+// Colleague that only counts what it receives, see RingBufferMediatorPattern
+class CountingUser extends User {
+    private long received;
+
+    public CountingUser(String name, ChatMediator mediator) {
+        super(name, mediator);
+    }
+
+    @Override
+    public void receive(User sender, String message) {
+        received++;
+    }
+
+    public long getReceived() {
+        return received;
+    }
+}
@@ -0,0 +1,230 @@
+package com.designpatterns.behavioral;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Random;
+
+/*
+A caretaker for the Memento pattern that stores differences instead of full copies. Only the most recently saved
+content is kept in full; every older version is stored as a reverse delta, the single changed region that turns the
+next newer version back into it. Undo therefore takes the newest version and, when it is undone, rebuilds the version
+below it from one delta. Every few saves a full keyframe is stored instead of a delta, which bounds how many deltas
+have to be applied to reach an older version directly.
+All entries are charged against a memory budget; when the history exceeds it the oldest entries are evicted, which is
+always safe because every delta only depends on versions newer than itself.
+ Pros:
+Compact: Typical edits cost a few bytes of history instead of a copy of the whole document.
+Bounded: The history never uses more than its budget.
+Fast Undo: Undoing one step applies a single delta.
+ Cons:
+Scan on Save: Finding the changed region compares the new content with the previous one.
+Lossy: Evicted versions cannot be restored.
+ */
+// Caretaker keeping reverse deltas and periodic keyframes within a memory budget
+class DeltaEditorHistory {
+    private static final long ENTRY_OVERHEAD = 48;
+
+    // An older version, either stored in full or as the change from the next newer version
+    private static final class Entry {
+        final boolean keyframe;
+        final int prefix;
+        final int suffix;
+        // The whole content for keyframes, otherwise the text between prefix and suffix
+        final String text;
+
+        Entry(boolean keyframe, int prefix, int suffix, String text) {
+            this.keyframe = keyframe;
+            this.prefix = prefix;
+            this.suffix = suffix;
+            this.text = text;
+        }
+
+        long bytes() {
+            return ENTRY_OVERHEAD + 2L * text.length();
+        }
+
+        String applyTo(String newer) {
+            if (keyframe) {
+                return text;
+            }
+            return newer.substring(0, prefix) + text + newer.substring(newer.length() - suffix);
+        }
+    }
+
+    private final long budgetBytes;
+    private final int keyframeInterval;
+    // Newest entry first
+    private final Deque<Entry> entries = new ArrayDeque<>();
+    private String latest;
+    private long usedBytes;
+    private long evicted;
+    private int savesSinceKeyframe;
+
+    public DeltaEditorHistory(long budgetBytes, int keyframeInterval) {
+        this.budgetBytes = budgetBytes;
+        this.keyframeInterval = keyframeInterval;
+    }
+
+    public void save(Editor editor) {
+        String content = editor.save().getContent();
+        if (latest != null) {
+            push(savesSinceKeyframe + 1 >= keyframeInterval ? keyframe(latest) : delta(content, latest));
+        }
+        usedBytes += contentBytes(content) - contentBytes(latest);
+        latest = content;
+        while (usedBytes > budgetBytes && !entries.isEmpty()) {
+            usedBytes -= entries.removeLast().bytes();
+            evicted++;
+        }
+    }
+
+    public void undo(Editor editor) {
+        if (latest == null) {
+            return;
+        }
+        editor.restore(new EditorMemento(latest));
+        Entry older = entries.pollFirst();
+        usedBytes -= contentBytes(latest);
+        if (older == null) {
+            latest = null;
+            return;
+        }
+        usedBytes -= older.bytes();
+        latest = older.applyTo(latest);
+        usedBytes += contentBytes(latest);
+        savesSinceKeyframe = older.keyframe ? 0 : Math.max(savesSinceKeyframe - 1, 0);
+    }
+
+    // Content saved stepsBack saves before the newest one, without undoing anything
+    public String peek(int stepsBack) {
+        if (stepsBack < 0 || stepsBack > entries.size() || latest == null) {
+            throw new IndexOutOfBoundsException("No saved version " + stepsBack + " steps back");
+        }
+        // Start from the newest keyframe at or above the requested version, or from the latest content
+        int start = 0;
+        String content = latest;
+        int step = 0;
+        for (Entry entry : entries) {
+            step++;
+            if (step > stepsBack) {
+                break;
+            }
+            if (entry.keyframe) {
+                start = step;
+                content = entry.text;
+            }
+        }
+        step = 0;
+        for (Entry entry : entries) {
+            step++;
+            if (step > stepsBack) {
+                break;
+            }
+            if (step > start) {
+                content = entry.applyTo(content);
+            }
+        }
+        return content;
+    }
+
+    public int size() {
+        return latest == null ? 0 : entries.size() + 1;
+    }
+
+    public long getUsedBytes() {
+        return usedBytes;
+    }
+
+    public long getEvicted() {
+        return evicted;
+    }
+
+    private void push(Entry entry) {
+        savesSinceKeyframe = entry.keyframe ? 0 : savesSinceKeyframe + 1;
+        entries.addFirst(entry);
+        usedBytes += entry.bytes();
+    }
+
+    private static Entry keyframe(String content) {
+        return new Entry(true, 0, 0, content);
+    }
+
+    // Reverse delta: the region of older that differs from newer
+    private static Entry delta(String newer, String older) {
+        int limit = Math.min(newer.length(), older.length());
+        int prefix = 0;
+        while (prefix < limit && newer.charAt(prefix) == older.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < limit - prefix
+                && newer.charAt(newer.length() - 1 - suffix) == older.charAt(older.length() - 1 - suffix)) {
+            suffix++;
+        }
+        return new Entry(false, prefix, suffix, older.substring(prefix, older.length() - suffix));
+    }
+
+    private static long contentBytes(String content) {
+        return content == null ? 0 : ENTRY_OVERHEAD + 2L * content.length();
+    }
+}
+
+// Client code
+public class DeltaMementoPattern {
+    private static final int DOCUMENT_CHARS = 1_000_000;
+    private static final int SAVES = 2_000;
+
+    public static void main(String[] args) {
+        Editor editor = new Editor();
+        DeltaEditorHistory history = new DeltaEditorHistory(1 << 20, 16);
+        editor.setContent("Version 1");
+        history.save(editor);
+        editor.setContent("Version 2");
+        history.save(editor);
+        editor.setContent("Version 3");
+        System.out.println("Current Content: " + editor.getContent());
+        history.undo(editor);
+        System.out.println("After undo: " + editor.getContent());
+        history.undo(editor);
+        System.out.println("After second undo: " + editor.getContent());
+
+        // Small edits to a large document, saved after every edit
+        for (long budget : new long[]{64L << 20, 8L << 20}) {
+            Random random = new Random(42);
+            StringBuilder document = new StringBuilder(DOCUMENT_CHARS);
+            for (int i = 0; i < DOCUMENT_CHARS; i++) {
+                document.append((char) ('a' + random.nextInt(26)));
+            }
+            DeltaEditorHistory deltas = new DeltaEditorHistory(budget, 64);
+            long saveNanos = 0;
+            for (int i = 0; i < SAVES; i++) {
+                int position = random.nextInt(document.length());
+                if (random.nextBoolean()) {
+                    document.insert(position, "edit " + i);
+                } else {
+                    document.delete(position, Math.min(position + 8, document.length()));
+                }
+                editor.setContent(document.toString());
+                long start = System.nanoTime();
+                deltas.save(editor);
+                saveNanos += System.nanoTime() - start;
+            }
+            long fullCopyBytes = (long) SAVES * 2 * DOCUMENT_CHARS;
+            System.out.printf("budget %,d: %d versions kept, %,d evicted, %,d bytes (full copies: ~%,d bytes)%n",
+                    budget, deltas.size(), deltas.getEvicted(), deltas.getUsedBytes(), fullCopyBytes);
+
+            long start = System.nanoTime();
+            String deep = deltas.peek(deltas.size() - 1);
+            long peekNanos = System.nanoTime() - start;
+            int undos = deltas.size();
+            start = System.nanoTime();
+            for (int i = 0; i < undos; i++) {
+                deltas.undo(editor);
+            }
+            long undoNanos = System.nanoTime() - start;
+            System.out.printf("  save %.1f us, undo %.1f us, peek oldest %.1f ms, oldest restored correctly: %b%n",
+                    saveNanos / 1e3 / SAVES, undoNanos / 1e3 / undos, peekNanos / 1e6,
+                    deep.equals(editor.getContent()));
+        }
+    }
+}
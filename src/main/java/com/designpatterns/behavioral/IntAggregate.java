@@ -0,0 +1,62 @@
+package com.designpatterns.behavioral;
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+// Concrete Aggregate backed by a growable int array, see PrimitiveIteratorPattern
+class IntAggregate {
+    // Largest array size the JVM reliably allows
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    private int[] items;
+    private int size;
+
+    public IntAggregate() {
+        this(16);
+    }
+
+    public IntAggregate(int initialCapacity) {
+        this.items = new int[Math.max(initialCapacity, 1)];
+    }
+
+    public void addItem(int item) {
+        if (size == items.length) {
+            items = Arrays.copyOf(items, grow(items.length));
+        }
+        items[size++] = item;
+    }
+
+    // Grows by half, capped at MAX_CAPACITY
+    private static int grow(int capacity) {
+        if (capacity >= MAX_CAPACITY) {
+            throw new IllegalStateException("Aggregate cannot hold more than " + MAX_CAPACITY + " elements");
+        }
+        return (int) Math.min((long) capacity + (capacity >> 1) + 1, MAX_CAPACITY);
+    }
+
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return items[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public IntIterator createIterator() {
+        return IntIterator.over(items, size);
+    }
+
+    public Spliterator.OfInt spliterator() {
+        return Spliterators.spliterator(items, 0, size, Spliterator.ORDERED | Spliterator.IMMUTABLE);
+    }
+
+    public IntStream stream(boolean parallel) {
+        return StreamSupport.intStream(spliterator(), parallel);
+    }
+}
@@ -0,0 +1,254 @@
+package com.designpatterns.behavioral;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+// Iterator interface for int elements, see PrimitiveIteratorPattern and IteratorCombinatorPattern
+interface IntIterator {
+    boolean hasNext();
+    int nextInt();
+
+    // Iterates the first end elements of the array without copying it
+    static IntIterator over(int[] items, int end) {
+        return new ArrayIterator(items, end);
+    }
+
+    static IntIterator of(int... values) {
+        return new ArrayIterator(values, values.length);
+    }
+
+    // Lazy combinators that never box
+    default IntIterator map(IntUnaryOperator mapper) {
+        return new Mapping(this, mapper);
+    }
+
+    default IntIterator filter(IntPredicate predicate) {
+        return new Filtering(this, predicate);
+    }
+
+    default IntIterator limit(long maxSize) {
+        return new Limiting(this, maxSize);
+    }
+
+    default IntIterator flatMap(IntFunction<? extends IntIterator> mapper) {
+        return new FlatMapping(this, mapper);
+    }
+
+    default <R> LazyIterator<R> mapToObj(IntFunction<? extends R> mapper) {
+        return new ToObjMapping<>(this, mapper);
+    }
+
+    default LazyIterator<int[]> batch(int size) {
+        return new Batching(this, size);
+    }
+
+    // Concrete Iterator over a range of an int array
+    final class ArrayIterator implements IntIterator {
+        private final int[] items;
+        private final int end;
+        private int position;
+
+        ArrayIterator(int[] items, int end) {
+            this.items = items;
+            this.end = end;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return position < end;
+        }
+
+        @Override
+        public int nextInt() {
+            if (position < end) {
+                return items[position++];
+            }
+            throw new NoSuchElementException("No more elements in the collection");
+        }
+    }
+
+    // IntIterator applying a function to every element
+    final class Mapping implements IntIterator {
+        private final IntIterator source;
+        private final IntUnaryOperator mapper;
+
+        Mapping(IntIterator source, IntUnaryOperator mapper) {
+            this.source = source;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return source.hasNext();
+        }
+
+        @Override
+        public int nextInt() {
+            return mapper.applyAsInt(source.nextInt());
+        }
+
+        @Override
+        public IntIterator map(IntUnaryOperator next) {
+            return new Mapping(source, mapper.andThen(next));
+        }
+    }
+
+    // IntIterator skipping elements that do not match a predicate
+    final class Filtering implements IntIterator {
+        private final IntIterator source;
+        private final IntPredicate predicate;
+        private int lookahead;
+        private boolean ready;
+
+        Filtering(IntIterator source, IntPredicate predicate) {
+            this.source = source;
+            this.predicate = predicate;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!ready && source.hasNext()) {
+                int candidate = source.nextInt();
+                if (predicate.test(candidate)) {
+                    lookahead = candidate;
+                    ready = true;
+                }
+            }
+            return ready;
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more elements in the collection");
+            }
+            ready = false;
+            return lookahead;
+        }
+
+        @Override
+        public IntIterator filter(IntPredicate next) {
+            if (ready) {
+                return IntIterator.super.filter(next);
+            }
+            return new Filtering(source, predicate.and(next));
+        }
+    }
+
+    // IntIterator stopping after a maximum number of elements
+    final class Limiting implements IntIterator {
+        private final IntIterator source;
+        private long remaining;
+
+        Limiting(IntIterator source, long maxSize) {
+            if (maxSize < 0) {
+                throw new IllegalArgumentException("maxSize must not be negative");
+            }
+            this.source = source;
+            this.remaining = maxSize;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0 && source.hasNext();
+        }
+
+        @Override
+        public int nextInt() {
+            if (remaining <= 0) {
+                throw new NoSuchElementException("No more elements in the collection");
+            }
+            remaining--;
+            return source.nextInt();
+        }
+
+        @Override
+        public IntIterator limit(long maxSize) {
+            return new Limiting(source, Math.min(remaining, maxSize));
+        }
+    }
+
+    // IntIterator expanding every element into an IntIterator of results
+    final class FlatMapping implements IntIterator {
+        private final IntIterator source;
+        private final IntFunction<? extends IntIterator> mapper;
+        private IntIterator current;
+
+        FlatMapping(IntIterator source, IntFunction<? extends IntIterator> mapper) {
+            this.source = source;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while ((current == null || !current.hasNext()) && source.hasNext()) {
+                current = mapper.apply(source.nextInt());
+            }
+            return current != null && current.hasNext();
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more elements in the collection");
+            }
+            return current.nextInt();
+        }
+    }
+
+    // IntIterator converting elements to objects
+    final class ToObjMapping<R> implements LazyIterator<R> {
+        private final IntIterator source;
+        private final IntFunction<? extends R> mapper;
+
+        ToObjMapping(IntIterator source, IntFunction<? extends R> mapper) {
+            this.source = source;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return source.hasNext();
+        }
+
+        @Override
+        public R next() {
+            return mapper.apply(source.nextInt());
+        }
+    }
+
+    // IntIterator grouping elements into arrays of a fixed size, the last one may be shorter
+    final class Batching implements LazyIterator<int[]> {
+        private final IntIterator source;
+        private final int size;
+
+        Batching(IntIterator source, int size) {
+            if (size <= 0) {
+                throw new IllegalArgumentException("size must be positive");
+            }
+            this.source = source;
+            this.size = size;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return source.hasNext();
+        }
+
+        @Override
+        public int[] next() {
+            if (!source.hasNext()) {
+                throw new NoSuchElementException("No more elements in the collection");
+            }
+            int[] batch = new int[size];
+            int count = 0;
+            while (count < size && source.hasNext()) {
+                batch[count++] = source.nextInt();
+            }
+            return count == size ? batch : Arrays.copyOf(batch, count);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.designpatterns.behavioral;
+
+import java.util.List;
+import java.util.function.LongSupplier;
+import java.util.stream.IntStream;
+
+/*
+Lazy combinators for the project's iterators. LazyIterator adds them to any Iterator, and IntIterator has its own
+primitive versions. map, filter, limit, flatMap and batch wrap the source iterator instead of copying it into a list, so
+a whole pipeline runs in a single pass and an element is pulled through every stage before the next one is read.
+Adjacent stages of the same kind are fused: map after map composes the two functions, filter after filter combines the
+predicates and limit after limit keeps the smaller bound, so long pipelines do not grow one wrapper per call. The
+IntIterator versions work on primitives and never box.
+ Pros:
+No Intermediate Collections: Elements flow through the pipeline one at a time.
+Short-circuiting: limit stops pulling from the source as soon as enough elements were produced.
+No Boxing: Primitive pipelines stay primitive until mapToObj.
+ Cons:
+Single Use: Like the iterators they wrap, pipelines can only be walked once.
+Sequential: Unlike streams, combinators do not run in parallel.
+ */
+// Client code
+public class IteratorCombinatorPattern {
+    private static final int ELEMENTS = 5_000_000;
+
+    public static void main(String[] args) {
+        ConcreteAggregate<String> words = new ConcreteAggregate<>();
+        words.addItem("iterator");
+        words.addItem("pattern");
+        words.addItem("lazy");
+        words.addItem("combinators");
+        Iterator<List<String>> batches = LazyIterator.of(words.createIterator())
+                .filter(word -> word.length() > 4)
+                .map(String::toUpperCase)
+                .flatMap(word -> {
+                    ConcreteAggregate<String> parts = new ConcreteAggregate<>();
+                    parts.addItem(word);
+                    parts.addItem(word.toLowerCase());
+                    return parts.createIterator();
+                })
+                .batch(2);
+        while (batches.hasNext()) {
+            System.out.println(batches.next());
+        }
+
+        ConcreteAggregate<Integer> boxed = new ConcreteAggregate<>();
+        IntAggregate primitive = new IntAggregate(ELEMENTS);
+        for (int i = 0; i < ELEMENTS; i++) {
+            boxed.addItem(i);
+            primitive.addItem(i);
+        }
+
+        for (int round = 0; round < 5; round++) {
+            boolean report = round == 4;
+            time("Iterator filter/map/limit", report, () -> {
+                Iterator<Integer> pipeline = LazyIterator.of(boxed.createIterator())
+                        .filter(x -> x % 3 == 0).map(x -> x * 2).map(x -> x + 1).limit(ELEMENTS / 4);
+                long sum = 0;
+                while (pipeline.hasNext()) {
+                    sum += pipeline.next();
+                }
+                return sum;
+            });
+            time("Stream filter/map/limit", report, () -> boxed.stream(false)
+                    .filter(x -> x % 3 == 0).map(x -> x * 2).map(x -> x + 1).limit(ELEMENTS / 4)
+                    .mapToLong(Integer::longValue).sum());
+            time("IntIterator filter/map/limit", report, () -> {
+                IntIterator pipeline = primitive.createIterator()
+                        .filter(x -> x % 3 == 0).map(x -> x * 2).map(x -> x + 1).limit(ELEMENTS / 4);
+                long sum = 0;
+                while (pipeline.hasNext()) {
+                    sum += pipeline.nextInt();
+                }
+                return sum;
+            });
+            time("IntStream filter/map/limit", report, () -> primitive.stream(false)
+                    .filter(x -> x % 3 == 0).map(x -> x * 2).map(x -> x + 1).limit(ELEMENTS / 4)
+                    .asLongStream().sum());
+            time("IntIterator flatMap", report, () -> {
+                IntIterator pipeline = primitive.createIterator().limit(ELEMENTS / 4)
+                        .flatMap(x -> IntIterator.of(x, -x, x));
+                long sum = 0;
+                while (pipeline.hasNext()) {
+                    sum += pipeline.nextInt();
+                }
+                return sum;
+            });
+            time("IntStream flatMap", report, () -> primitive.stream(false).limit(ELEMENTS / 4)
+                    .flatMap(x -> IntStream.of(x, -x, x)).asLongStream().sum());
+        }
+    }
+
+    private static void time(String name, boolean report, LongSupplier work) {
+        long start = System.nanoTime();
+        long result = work.getAsLong();
+        long elapsed = System.nanoTime() - start;
+        if (report) {
+            System.out.printf("%-30s result=%d %8.1f ms%n", name, result, elapsed / 1_000_000.0);
+        }
+    }
+}
@@ -3,6 +3,9 @@ package com.designpatterns.behavioral;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /*
 The Iterator design pattern is a behavioral design pattern that provides a way to access the elements of an aggregate object
@@ -70,6 +73,15 @@ class ConcreteAggregate<T> implements Aggregate<T> {
     public Iterator<T> createIterator() {
         return new ConcreteIterator<>(items);
     }
+
+    // Sized spliterator that splits the items in halves
+    public Spliterator<T> spliterator() {
+        return items.spliterator();
+    }
+
+    public Stream<T> stream(boolean parallel) {
+        return StreamSupport.stream(spliterator(), parallel);
+    }
 }
 
 // Client code
@@ -0,0 +1,246 @@
+package com.designpatterns.behavioral;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+// Iterator with lazy, fusing combinators, see IteratorCombinatorPattern
+interface LazyIterator<T> extends Iterator<T> {
+    static <T> LazyIterator<T> of(Iterator<T> source) {
+        if (source instanceof LazyIterator) {
+            return (LazyIterator<T>) source;
+        }
+        return new Adapter<>(source);
+    }
+
+    default <R> LazyIterator<R> map(Function<? super T, ? extends R> mapper) {
+        return new Mapping<>(this, mapper);
+    }
+
+    default LazyIterator<T> filter(Predicate<? super T> predicate) {
+        return new Filtering<>(this, predicate);
+    }
+
+    default LazyIterator<T> limit(long maxSize) {
+        return new Limiting<>(this, maxSize);
+    }
+
+    default <R> LazyIterator<R> flatMap(Function<? super T, ? extends Iterator<? extends R>> mapper) {
+        return new FlatMapping<>(this, mapper);
+    }
+
+    default LazyIterator<List<T>> batch(int size) {
+        return new Batching<>(this, size);
+    }
+
+    default IntIterator mapToInt(ToIntFunction<? super T> mapper) {
+        return new ToIntMapping<>(this, mapper);
+    }
+
+    // Plain Iterator given the combinators
+    final class Adapter<T> implements LazyIterator<T> {
+        private final Iterator<T> source;
+
+        Adapter(Iterator<T> source) {
+            this.source = source;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return source.hasNext();
+        }
+
+        @Override
+        public T next() {
+            return source.next();
+        }
+    }
+
+    // Iterator applying a function to every element
+    final class Mapping<T, R> implements LazyIterator<R> {
+        private final Iterator<T> source;
+        private final Function<? super T, ? extends R> mapper;
+
+        Mapping(Iterator<T> source, Function<? super T, ? extends R> mapper) {
+            this.source = source;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return source.hasNext();
+        }
+
+        @Override
+        public R next() {
+            return mapper.apply(source.next());
+        }
+
+        // Fuses with the previous map into a single stage
+        @Override
+        public <V> LazyIterator<V> map(Function<? super R, ? extends V> next) {
+            return new Mapping<T, V>(source, element -> next.apply(mapper.apply(element)));
+        }
+    }
+
+    // Iterator skipping elements that do not match a predicate
+    final class Filtering<T> implements LazyIterator<T> {
+        private final Iterator<T> source;
+        private final Predicate<? super T> predicate;
+        private T lookahead;
+        private boolean ready;
+
+        Filtering(Iterator<T> source, Predicate<? super T> predicate) {
+            this.source = source;
+            this.predicate = predicate;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!ready && source.hasNext()) {
+                T candidate = source.next();
+                if (predicate.test(candidate)) {
+                    lookahead = candidate;
+                    ready = true;
+                }
+            }
+            return ready;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more elements in the collection");
+            }
+            T element = lookahead;
+            lookahead = null;
+            ready = false;
+            return element;
+        }
+
+        // Fuses with the previous filter into a single stage
+        @Override
+        public LazyIterator<T> filter(Predicate<? super T> next) {
+            if (ready) {
+                return LazyIterator.super.filter(next);
+            }
+            return new Filtering<T>(source, element -> predicate.test(element) && next.test(element));
+        }
+    }
+
+    // Iterator stopping after a maximum number of elements
+    final class Limiting<T> implements LazyIterator<T> {
+        private final Iterator<T> source;
+        private long remaining;
+
+        Limiting(Iterator<T> source, long maxSize) {
+            if (maxSize < 0) {
+                throw new IllegalArgumentException("maxSize must not be negative");
+            }
+            this.source = source;
+            this.remaining = maxSize;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0 && source.hasNext();
+        }
+
+        @Override
+        public T next() {
+            if (remaining <= 0) {
+                throw new NoSuchElementException("No more elements in the collection");
+            }
+            remaining--;
+            return source.next();
+        }
+
+        @Override
+        public LazyIterator<T> limit(long maxSize) {
+            return new Limiting<>(source, Math.min(remaining, maxSize));
+        }
+    }
+
+    // Iterator expanding every element into an iterator of results
+    final class FlatMapping<T, R> implements LazyIterator<R> {
+        private final Iterator<T> source;
+        private final Function<? super T, ? extends Iterator<? extends R>> mapper;
+        private Iterator<? extends R> current;
+
+        FlatMapping(Iterator<T> source, Function<? super T, ? extends Iterator<? extends R>> mapper) {
+            this.source = source;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while ((current == null || !current.hasNext()) && source.hasNext()) {
+                current = mapper.apply(source.next());
+            }
+            return current != null && current.hasNext();
+        }
+
+        @Override
+        public R next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more elements in the collection");
+            }
+            return current.next();
+        }
+    }
+
+    // Iterator grouping elements into lists of a fixed size, the last one may be shorter
+    final class Batching<T> implements LazyIterator<List<T>> {
+        private final Iterator<T> source;
+        private final int size;
+
+        Batching(Iterator<T> source, int size) {
+            if (size <= 0) {
+                throw new IllegalArgumentException("size must be positive");
+            }
+            this.source = source;
+            this.size = size;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return source.hasNext();
+        }
+
+        @Override
+        public List<T> next() {
+            if (!source.hasNext()) {
+                throw new NoSuchElementException("No more elements in the collection");
+            }
+            List<T> batch = new ArrayList<>(size);
+            while (batch.size() < size && source.hasNext()) {
+                batch.add(source.next());
+            }
+            return batch;
+        }
+    }
+
+    // Iterator converting elements to ints
+    final class ToIntMapping<T> implements IntIterator {
+        private final Iterator<T> source;
+        private final ToIntFunction<? super T> mapper;
+
+        ToIntMapping(Iterator<T> source, ToIntFunction<? super T> mapper) {
+            this.source = source;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return source.hasNext();
+        }
+
+        @Override
+        public int nextInt() {
+            return mapper.applyAsInt(source.next());
+        }
+    }
+}
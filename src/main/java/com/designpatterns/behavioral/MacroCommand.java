@@ -0,0 +1,25 @@
+package com.designpatterns.behavioral;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Composite command executed as a single unit, see CommandExecutorPattern
+class MacroCommand implements Command {
+    private final List<Command> commands;
+
+    public MacroCommand(List<Command> commands) {
+        this.commands = Collections.unmodifiableList(new ArrayList<>(commands));
+    }
+
+    public List<Command> getCommands() {
+        return commands;
+    }
+
+    @Override
+    public void execute() {
+        for (Command command : commands) {
+            command.execute();
+        }
+    }
+}
@@ -0,0 +1,386 @@
+package com.designpatterns.behavioral;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+A mediator that gives every user a bounded mailbox instead of calling them on the sender's thread. Sending a message
+only appends it to the mailboxes of the other users, and each mailbox is drained by a short task on a shared pool that
+is scheduled when the mailbox becomes non-empty, so a slow user only ever delays its own messages.
+When a mailbox is full its overflow policy decides what happens: BLOCK makes the sender wait for room, DROP_OLDEST
+discards the oldest pending message, DROP_NEWEST discards the message being sent, and CONFLATE keeps only the latest
+pending message from each sender. Per-mailbox depth, peak depth and drop counts show which users are falling behind.
+ Pros:
+Isolation: A slow user no longer slows down the senders, unless its policy is BLOCK.
+Bounded Memory: Every mailbox has a fixed capacity.
+Observability: Depth and drop metrics point directly at the slow consumers.
+ Cons:
+Lossy Policies: Every policy except BLOCK loses messages under sustained overload.
+Ordering: Messages are ordered per mailbox, but different users may see them at different times.
+ */
+// What a full mailbox does with a new message
+enum OverflowPolicy {
+    BLOCK, DROP_OLDEST, DROP_NEWEST, CONFLATE
+}
+
+// Point-in-time metrics of one user's mailbox
+class MailboxStats {
+    private final String user;
+    private final OverflowPolicy policy;
+    private final int depth;
+    private final int peakDepth;
+    private final long delivered;
+    private final long dropped;
+    private final long failed;
+
+    MailboxStats(String user, OverflowPolicy policy, int depth, int peakDepth, long delivered, long dropped,
+                 long failed) {
+        this.user = user;
+        this.policy = policy;
+        this.depth = depth;
+        this.peakDepth = peakDepth;
+        this.delivered = delivered;
+        this.dropped = dropped;
+        this.failed = failed;
+    }
+
+    public String getUser() {
+        return user;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getPeakDepth() {
+        return peakDepth;
+    }
+
+    public long getDelivered() {
+        return delivered;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-8s %-11s depth=%4d peak=%4d delivered=%,9d dropped=%,9d failed=%,d",
+                user, policy, depth, peakDepth, delivered, dropped, failed);
+    }
+}
+
+// Bounded queue of pending messages for one user, drained by tasks on a shared executor
+class Mailbox {
+    private static final int DRAIN_BATCH = 64;
+
+    // A pending message
+    private static final class Letter {
+        final User sender;
+        String message;
+
+        Letter(User sender, String message) {
+            this.sender = sender;
+            this.message = message;
+        }
+    }
+
+    private final User owner;
+    private final int capacity;
+    private final OverflowPolicy policy;
+    private final ExecutorService executor;
+    private final ArrayDeque<Letter> letters = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private int peakDepth;
+
+    Mailbox(User owner, int capacity, OverflowPolicy policy, ExecutorService executor) {
+        this.owner = owner;
+        this.capacity = capacity;
+        this.policy = policy;
+        this.executor = executor;
+    }
+
+    void post(User sender, String message) throws InterruptedException {
+        lock.lock();
+        try {
+            if (policy == OverflowPolicy.CONFLATE && conflate(sender, message)) {
+                return;
+            }
+            if (letters.size() == capacity) {
+                switch (policy) {
+                    case BLOCK:
+                        while (letters.size() == capacity) {
+                            notFull.await();
+                        }
+                        break;
+                    case DROP_NEWEST:
+                        dropped.increment();
+                        return;
+                    case DROP_OLDEST:
+                    case CONFLATE:
+                        letters.pollFirst();
+                        dropped.increment();
+                        break;
+                }
+            }
+            letters.addLast(new Letter(sender, message));
+            peakDepth = Math.max(peakDepth, letters.size());
+        } finally {
+            lock.unlock();
+        }
+        schedule();
+    }
+
+    // Replaces the pending message of the same sender, if there is one
+    private boolean conflate(User sender, String message) {
+        java.util.Iterator<Letter> pending = letters.descendingIterator();
+        while (pending.hasNext()) {
+            Letter letter = pending.next();
+            if (letter.sender == sender) {
+                letter.message = message;
+                dropped.increment();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    // Delivers up to one batch, then yields the pool thread to other mailboxes
+    private void drain() {
+        try {
+            for (int i = 0; i < DRAIN_BATCH; i++) {
+                Letter letter;
+                lock.lock();
+                try {
+                    letter = letters.pollFirst();
+                    if (letter != null) {
+                        notFull.signal();
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                if (letter == null) {
+                    break;
+                }
+                try {
+                    owner.receive(letter.sender, letter.message);
+                    delivered.increment();
+                } catch (RuntimeException e) {
+                    // A failing user loses this message, not its mailbox
+                    failed.increment();
+                }
+            }
+        } finally {
+            scheduled.set(false);
+            // A message posted after the last poll must not be left without a drain task
+            if (depth() > 0) {
+                schedule();
+            }
+        }
+    }
+
+    // No pending messages and no drain task still delivering one
+    boolean isIdle() {
+        lock.lock();
+        try {
+            return letters.isEmpty() && !scheduled.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int depth() {
+        lock.lock();
+        try {
+            return letters.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    MailboxStats stats() {
+        lock.lock();
+        try {
+            return new MailboxStats(owner.getName(), policy, letters.size(), peakDepth, delivered.sum(),
+                    dropped.sum(), failed.sum());
+        } finally {
+            lock.unlock();
+        }
+    }
+}
+
+// Concrete Mediator delivering each message through the recipients' mailboxes
+class MailboxChatMediator implements ChatMediator, AutoCloseable {
+    private final int capacity;
+    private final OverflowPolicy defaultPolicy;
+    private final ExecutorService executor;
+    private final Map<User, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    public MailboxChatMediator(int capacity, OverflowPolicy defaultPolicy, int drainThreads) {
+        this.capacity = capacity;
+        this.defaultPolicy = defaultPolicy;
+        this.executor = Executors.newFixedThreadPool(drainThreads, runnable -> {
+            Thread thread = new Thread(runnable, "mailbox-drain");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void register(User user) {
+        register(user, defaultPolicy);
+    }
+
+    public void register(User user, OverflowPolicy policy) {
+        mailboxes.put(user, new Mailbox(user, capacity, policy, executor));
+    }
+
+    public void unregister(User user) {
+        mailboxes.remove(user);
+    }
+
+    @Override
+    public void showMessage(User user, String message) {
+        for (Map.Entry<User, Mailbox> entry : mailboxes.entrySet()) {
+            if (entry.getKey() != user) {
+                try {
+                    entry.getValue().post(user, message);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    // Mailbox metrics, the users dropping the most messages first
+    public List<MailboxStats> stats() {
+        List<MailboxStats> stats = new ArrayList<>();
+        for (Mailbox mailbox : mailboxes.values()) {
+            stats.add(mailbox.stats());
+        }
+        stats.sort(Comparator.comparingLong(MailboxStats::getDropped).reversed()
+                .thenComparing(Comparator.comparingInt(MailboxStats::getDepth).reversed()));
+        return stats;
+    }
+
+    // Waits until every mailbox is empty and its last message has been handled
+    public void awaitDrained() throws InterruptedException {
+        for (Mailbox mailbox : mailboxes.values()) {
+            while (!mailbox.isIdle()) {
+                Thread.sleep(1);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            awaitDrained();
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
+
+// Colleague that takes a fixed time to handle each message
+class SlowUser extends User {
+    private final long delayNanos;
+
+    public SlowUser(String name, ChatMediator mediator, long delayNanos) {
+        super(name, mediator);
+        this.delayNanos = delayNanos;
+    }
+
+    @Override
+    public void receive(User sender, String message) {
+        long end = System.nanoTime() + delayNanos;
+        while (System.nanoTime() < end) {
+            Thread.onSpinWait();
+        }
+    }
+}
+
+// Client Code
+public class MailboxMediatorPattern {
+    private static final int MESSAGES = 20_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        try (MailboxChatMediator mediator = new MailboxChatMediator(16, OverflowPolicy.BLOCK, 2)) {
+            User alice = new User("Alice", mediator);
+            User bob = new User("Bob", mediator);
+            mediator.register(alice);
+            mediator.register(bob);
+            alice.sendMessage("Hello, Bob!");
+            bob.sendMessage("Hey, Alice!");
+        }
+
+        // A user that throws loses those messages but keeps draining, so BLOCK senders never hang on it
+        try (MailboxChatMediator mediator = new MailboxChatMediator(4, OverflowPolicy.BLOCK, 1)) {
+            User sender = new User("sender", mediator);
+            mediator.register(new User("broken", mediator) {
+                @Override
+                public void receive(User from, String message) {
+                    if (message.endsWith("0")) {
+                        throw new IllegalStateException("cannot handle " + message);
+                    }
+                }
+            });
+            for (int i = 0; i < 100; i++) {
+                sender.sendMessage("tick " + i);
+            }
+            mediator.awaitDrained();
+            System.out.println(mediator.stats().get(0));
+        }
+
+        // One slow user among fast ones: only BLOCK lets it hold the sender back
+        for (OverflowPolicy policy : OverflowPolicy.values()) {
+            try (MailboxChatMediator mediator = new MailboxChatMediator(256, OverflowPolicy.BLOCK, 2)) {
+                List<User> publishers = List.of(new User("prices", mediator), new User("news", mediator));
+                for (int i = 0; i < 4; i++) {
+                    mediator.register(new CountingUser("fast-" + i, mediator));
+                }
+                mediator.register(new SlowUser("slow", mediator, 20_000), policy);
+
+                long start = System.nanoTime();
+                for (int i = 0; i < MESSAGES; i++) {
+                    publishers.get(i & 1).sendMessage("tick " + i);
+                }
+                double sendMillis = (System.nanoTime() - start) / 1e6;
+                MailboxStats worst = mediator.stats().get(0);
+                mediator.awaitDrained();
+                System.out.printf("%-11s sent %,d messages in %7.1f ms, worst mailbox: %s%n",
+                        policy, MESSAGES, sendMillis, worst);
+            }
+        }
+    }
+}
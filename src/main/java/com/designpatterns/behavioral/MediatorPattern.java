@@ -44,6 +44,11 @@ class User {
     public void sendMessage(String message) {
         mediator.showMessage(this, message);
     }
+
+    // Called by mediators that deliver messages to the other participants
+    public void receive(User sender, String message) {
+        System.out.println(name + " received from " + sender.getName() + ": " + message);
+    }
 }
 
 // Client Code
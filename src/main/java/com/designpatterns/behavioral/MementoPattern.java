@@ -1,7 +1,7 @@
 package com.designpatterns.behavioral;
 
-
-import java.util.Stack;
+import java.util.ArrayDeque;
+import java.util.Deque;
 
 /*
 The Memento design pattern is a behavioral design pattern that allows you to capture and externalize an object’s internal state
@@ -55,7 +55,7 @@ class Editor {
 
 // Caretaker Class
 class EditorHistory {
-    private Stack<EditorMemento> history = new Stack<>();
+    private Deque<EditorMemento> history = new ArrayDeque<>();
 
     public void save(Editor editor) {
         history.push(editor.save());
@@ -0,0 +1,485 @@
+package com.designpatterns.behavioral;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/*
+A k-way merging iterator with optional spilling to disk. MergingIterator combines k sorted iterators into one sorted
+iterator using a binary heap of the current head of every source, so each element costs O(log k) comparisons and memory
+is proportional to k, not to the number of elements.
+SpillingMerger bounds memory further: elements are buffered up to a configurable count, sorted and written as a run into
+a temporary memory-mapped file, and sources beyond the configured fan-in are first merged into larger runs on disk. The
+final merge streams every run back through a sliding memory-mapped window, so the heap only ever holds the buffer and
+one head per run. Nothing is spilled that does not have to be: while the sorted sources and the buffer fit into one
+merge of at most the fan-in, they are merged straight from memory.
+ Pros:
+Bounded Memory: Heap use depends on the buffer size and the fan-in, not on the total number of elements.
+Streaming: The merged result is produced lazily, element by element.
+Any Order: Works with any Comparator and any element type that has a RunCodec.
+ Cons:
+Disk I/O: Spilled elements are written and read back at least once.
+Disk Cleanup: A spill file is only deleted once its run has been read to the end.
+ */
+// Binary encoding of elements written to spill files
+interface RunCodec<T> {
+    int sizeOf(T value);
+    void write(T value, ByteBuffer out);
+    T read(ByteBuffer in);
+
+    static RunCodec<Integer> integers() {
+        return new RunCodec<>() {
+            @Override
+            public int sizeOf(Integer value) {
+                return Integer.BYTES;
+            }
+
+            @Override
+            public void write(Integer value, ByteBuffer out) {
+                out.putInt(value);
+            }
+
+            @Override
+            public Integer read(ByteBuffer in) {
+                return in.getInt();
+            }
+        };
+    }
+
+    static RunCodec<String> strings() {
+        return new RunCodec<>() {
+            @Override
+            public int sizeOf(String value) {
+                return value.getBytes(StandardCharsets.UTF_8).length;
+            }
+
+            @Override
+            public void write(String value, ByteBuffer out) {
+                out.put(value.getBytes(StandardCharsets.UTF_8));
+            }
+
+            @Override
+            public String read(ByteBuffer in) {
+                byte[] bytes = new byte[in.remaining()];
+                in.get(bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        };
+    }
+}
+
+// Iterator merging k sorted iterators through a binary min-heap of source indexes
+class MergingIterator<T> implements Iterator<T> {
+    private final List<? extends Iterator<T>> sources;
+    private final Comparator<? super T> comparator;
+    private final Object[] heads;
+    private final int[] heap;
+    private int heapSize;
+
+    MergingIterator(List<? extends Iterator<T>> sources, Comparator<? super T> comparator) {
+        this.sources = sources;
+        this.comparator = comparator;
+        this.heads = new Object[sources.size()];
+        this.heap = new int[sources.size()];
+        for (int i = 0; i < sources.size(); i++) {
+            if (sources.get(i).hasNext()) {
+                heads[i] = sources.get(i).next();
+                heap[heapSize++] = i;
+            }
+        }
+        for (int i = heapSize / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return heapSize > 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T next() {
+        if (heapSize == 0) {
+            throw new NoSuchElementException("No more elements in the collection");
+        }
+        int source = heap[0];
+        T result = (T) heads[source];
+        Iterator<T> iterator = sources.get(source);
+        if (iterator.hasNext()) {
+            heads[source] = iterator.next();
+        } else {
+            heads[source] = null;
+            heap[0] = heap[--heapSize];
+        }
+        if (heapSize > 0) {
+            siftDown(0);
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean less(int a, int b) {
+        int order = comparator.compare((T) heads[a], (T) heads[b]);
+        // Ties go to the lower source index, which keeps the merge stable
+        return order < 0 || (order == 0 && a < b);
+    }
+
+    private void siftDown(int index) {
+        int source = heap[index];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && less(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!less(heap[child], source)) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = source;
+    }
+}
+
+// Sorted run stored in a temporary file
+class SpillRun {
+    final Path file;
+    final long count;
+
+    SpillRun(Path file, long count) {
+        this.file = file;
+        this.count = count;
+    }
+}
+
+// Writes a run through a sliding memory-mapped window.
+// Each element is stored as [length][bytes], a length of -1 means the rest is in the next window
+class SpillRunWriter<T> implements AutoCloseable {
+    static final int SKIP_MARKER = -1;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final RunCodec<T> codec;
+    private final int windowBytes;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long count;
+
+    SpillRunWriter(Path file, RunCodec<T> codec, int windowBytes) throws IOException {
+        this.file = file;
+        this.codec = codec;
+        this.windowBytes = windowBytes;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.window = channel.map(FileChannel.MapMode.READ_WRITE, 0, windowBytes);
+    }
+
+    void write(T value) throws IOException {
+        int size = codec.sizeOf(value);
+        if (Integer.BYTES + size > windowBytes) {
+            throw new IllegalArgumentException("Element of " + size + " bytes does not fit in a spill window");
+        }
+        if (window.remaining() < Integer.BYTES + size) {
+            if (window.remaining() >= Integer.BYTES) {
+                window.putInt(SKIP_MARKER);
+            }
+            windowStart += windowBytes;
+            window = channel.map(FileChannel.MapMode.READ_WRITE, windowStart, windowBytes);
+        }
+        window.putInt(size);
+        int end = window.position() + size;
+        codec.write(value, window);
+        if (window.position() != end) {
+            throw new IllegalStateException("Codec wrote " + (window.position() - end + size)
+                    + " bytes, expected " + size);
+        }
+        count++;
+    }
+
+    SpillRun finish() throws IOException {
+        close();
+        return new SpillRun(file, count);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
+
+// Streams a run back through a sliding memory-mapped window and deletes the file once drained
+class SpillRunReader<T> implements Iterator<T> {
+    private final SpillRun run;
+    private final RunCodec<T> codec;
+    private final int windowBytes;
+    private ByteBuffer window;
+    private long windowStart;
+    private long remaining;
+
+    SpillRunReader(SpillRun run, RunCodec<T> codec, int windowBytes) {
+        this.run = run;
+        this.codec = codec;
+        this.windowBytes = windowBytes;
+        this.remaining = run.count;
+        if (remaining > 0) {
+            window = map(0);
+        } else {
+            delete();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return remaining > 0;
+    }
+
+    @Override
+    public T next() {
+        if (remaining == 0) {
+            throw new NoSuchElementException("No more elements in the collection");
+        }
+        int size = window.remaining() >= Integer.BYTES ? window.getInt() : SpillRunWriter.SKIP_MARKER;
+        if (size == SpillRunWriter.SKIP_MARKER) {
+            windowStart += windowBytes;
+            window = map(windowStart);
+            size = window.getInt();
+        }
+        ByteBuffer element = window.slice(window.position(), size);
+        window.position(window.position() + size);
+        T value = codec.read(element);
+        if (--remaining == 0) {
+            window = null;
+            delete();
+        }
+        return value;
+    }
+
+    private ByteBuffer map(long position) {
+        try (FileChannel channel = FileChannel.open(run.file, StandardOpenOption.READ)) {
+            long size = Math.min(windowBytes, channel.size() - position);
+            return channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void delete() {
+        try {
+            Files.deleteIfExists(run.file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
+
+// Bounded-memory merge of many sorted sources, spilling sorted runs to disk
+class SpillingMerger<T> {
+    private final Comparator<? super T> comparator;
+    private final RunCodec<T> codec;
+    private final int maxBufferedElements;
+    private final int maxFanIn;
+    private final int windowBytes;
+    private final Path directory;
+
+    private final List<T> buffer = new ArrayList<>();
+    private final List<SpillRun> runs = new ArrayList<>();
+    // Sorted sources not spilled yet, never more than the fan-in
+    private final List<Iterator<T>> sources = new ArrayList<>();
+
+    public SpillingMerger(Comparator<? super T> comparator, RunCodec<T> codec, int maxBufferedElements,
+                          int maxFanIn, int windowBytes, Path directory) {
+        if (maxFanIn < 2) {
+            throw new IllegalArgumentException("maxFanIn must be at least 2");
+        }
+        this.comparator = comparator;
+        this.codec = codec;
+        this.maxBufferedElements = maxBufferedElements;
+        this.maxFanIn = maxFanIn;
+        this.windowBytes = windowBytes;
+        this.directory = directory;
+    }
+
+    // Adds elements in any order, spilling a sorted run whenever the buffer is full
+    public void add(T element) {
+        buffer.add(element);
+        if (buffer.size() >= maxBufferedElements) {
+            spillBuffer();
+        }
+    }
+
+    // Adds an already sorted source as a run of its own, without buffering it. The source is only read when it has
+    // to be spilled or when merging
+    public void addSorted(Iterator<T> source) {
+        sources.add(source);
+        if (sources.size() > maxFanIn) {
+            spillSources();
+        }
+    }
+
+    // Merges everything added so far. The merger can be reused afterwards
+    public Iterator<T> merge() {
+        List<T> sorted = new ArrayList<>(buffer);
+        buffer.clear();
+        sorted.sort(comparator);
+        int inMemory = sorted.isEmpty() ? 0 : 1;
+        if (runs.size() + sources.size() + inMemory > maxFanIn) {
+            spillSources();
+        }
+        // Merge just enough runs on disk that the rest and the buffer fit into the final merge
+        while (runs.size() + inMemory > maxFanIn) {
+            int groupSize = Math.min(maxFanIn, runs.size() + inMemory - maxFanIn + 1);
+            List<SpillRun> group = new ArrayList<>(runs.subList(0, groupSize));
+            runs.subList(0, groupSize).clear();
+            runs.add(writeRun(new MergingIterator<>(readers(group), comparator)));
+        }
+        List<Iterator<T>> inputs = readers(runs);
+        inputs.addAll(sources);
+        if (!sorted.isEmpty()) {
+            inputs.add(new ConcreteIterator<>(sorted));
+        }
+        runs.clear();
+        sources.clear();
+        return inputs.size() == 1 ? inputs.get(0) : new MergingIterator<>(inputs, comparator);
+    }
+
+    private List<Iterator<T>> readers(List<SpillRun> group) {
+        List<Iterator<T>> readers = new ArrayList<>(group.size());
+        for (SpillRun run : group) {
+            readers.add(new SpillRunReader<>(run, codec, windowBytes));
+        }
+        return readers;
+    }
+
+    private void spillBuffer() {
+        buffer.sort(comparator);
+        runs.add(writeRun(new ConcreteIterator<>(buffer)));
+        buffer.clear();
+    }
+
+    private void spillSources() {
+        for (Iterator<T> source : sources) {
+            runs.add(writeRun(source));
+        }
+        sources.clear();
+    }
+
+    private SpillRun writeRun(Iterator<T> sorted) {
+        try {
+            Path file = Files.createTempFile(directory, "run", ".spill");
+            try (SpillRunWriter<T> writer = new SpillRunWriter<>(file, codec, windowBytes)) {
+                while (sorted.hasNext()) {
+                    writer.write(sorted.next());
+                }
+                return writer.finish();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
+
+// Client code
+public class MergingIteratorPattern {
+    private static final int TOTAL_ELEMENTS = 2_000_000;
+
+    public static void main(String[] args) throws IOException {
+        ConcreteAggregate<String> first = new ConcreteAggregate<>();
+        first.addItem("apple");
+        first.addItem("melon");
+        ConcreteAggregate<String> second = new ConcreteAggregate<>();
+        second.addItem("banana");
+        second.addItem("cherry");
+        second.addItem("pear");
+        Iterator<String> merged = new MergingIterator<>(
+                List.of(first.createIterator(), second.createIterator()), Comparator.naturalOrder());
+        while (merged.hasNext()) {
+            System.out.println(merged.next());
+        }
+
+        Path directory = Files.createTempDirectory("merge-spill");
+        try {
+            System.out.printf("%6s %18s %20s %10s%n", "k", "in-memory el/s", "SpillingMerger el/s", "run files");
+            for (int k : new int[]{2, 16, 128, 1024}) {
+                List<ConcreteAggregate<Integer>> sources = sortedSources(k);
+
+                long start = System.nanoTime();
+                List<Iterator<Integer>> iterators = new ArrayList<>();
+                sources.forEach(source -> iterators.add(source.createIterator()));
+                long inMemory = drain(new MergingIterator<>(iterators, Comparator.naturalOrder()));
+                double inMemorySeconds = (System.nanoTime() - start) / 1e9;
+
+                start = System.nanoTime();
+                SpillingMerger<Integer> merger = new SpillingMerger<>(Comparator.naturalOrder(),
+                        RunCodec.integers(), 100_000, 64, 1 << 20, directory);
+                sources.forEach(source -> merger.addSorted(source.createIterator()));
+                Iterator<Integer> spilling = merger.merge();
+                long runFiles;
+                try (Stream<Path> files = Files.list(directory)) {
+                    runFiles = files.count();
+                }
+                long spilled = drain(spilling);
+                double spillingSeconds = (System.nanoTime() - start) / 1e9;
+
+                if (inMemory != TOTAL_ELEMENTS || spilled != TOTAL_ELEMENTS) {
+                    throw new IllegalStateException("Merge lost elements");
+                }
+                System.out.printf("%6d %,18.0f %,20.0f %10d%n", k,
+                        TOTAL_ELEMENTS / inMemorySeconds, TOTAL_ELEMENTS / spillingSeconds, runFiles);
+            }
+        } finally {
+            // Runs that were not read to the end still have their files
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+
+    private static List<ConcreteAggregate<Integer>> sortedSources(int k) {
+        Random random = new Random(k);
+        int[] values = random.ints(TOTAL_ELEMENTS).toArray();
+        Arrays.sort(values);
+        List<ConcreteAggregate<Integer>> sources = new ArrayList<>();
+        for (int i = 0; i < k; i++) {
+            sources.add(new ConcreteAggregate<>());
+        }
+        // Dealing sorted values out round-robin keeps every source sorted
+        for (int i = 0; i < values.length; i++) {
+            sources.get(i % k).addItem(values[i]);
+        }
+        return sources;
+    }
+
+    // Drains the iterator, checking the order, and returns the element count
+    private static long drain(Iterator<Integer> iterator) {
+        long count = 0;
+        int previous = Integer.MIN_VALUE;
+        while (iterator.hasNext()) {
+            int value = iterator.next();
+            if (value < previous) {
+                throw new IllegalStateException("Merge produced elements out of order");
+            }
+            previous = value;
+            count++;
+        }
+        return count;
+    }
+}
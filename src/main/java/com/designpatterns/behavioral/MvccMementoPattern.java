@@ -0,0 +1,370 @@
+package com.designpatterns.behavioral;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.UnaryOperator;
+
+/*
+Multi-version concurrency control for the Memento pattern's originator. Every edit produces a new immutable version of
+the content, a persistent rope that shares all unchanged text with the version before it, and publishes it by swapping
+a single atomic reference. Readers pin the current version by incrementing one of its pin counters and read it for as
+long as they like without ever taking a lock, while writers keep publishing newer versions. The pin count is striped
+over counters on separate cache lines, picked by the reading thread, so readers of the same version do not contend.
+A superseded version is closed when it is replaced and stays registered while it is pinned. A reader that pins a
+version and then finds it closed backs out and pins the newer current version instead. Whoever leaves the counters of
+a closed version at zero reclaims it and drops it from the editor.
+ Pros:
+Lock-free Reads: Readers never block writers or each other.
+Consistent Snapshots: A pinned version never changes, however long it is read.
+Cheap Versions: Persistent ropes make each version cost only the nodes an edit touched.
+ Cons:
+Pinning Discipline: Readers must unpin, or old versions are never reclaimed.
+Writer Retries: Concurrent writers retry when another writer published first.
+Version Footprint: Every version carries a padded counter per stripe.
+Read Cost: A read walks the rope, so on few cores, where pinning never contends, a flat String under a lock reads faster.
+ */
+// An immutable version of the editor's content
+class EditorVersion {
+    // Ints per cache line, so every stripe has a line of its own
+    private static final int PADDING = 16;
+    private static final int STRIPES = Math.min(64,
+            Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) << 1);
+
+    private final long number;
+    private final Rope content;
+    private final AtomicIntegerArray pins = new AtomicIntegerArray(STRIPES * PADDING);
+    private final AtomicBoolean reclaimed = new AtomicBoolean();
+    private volatile boolean closed;
+
+    EditorVersion(long number, Rope content) {
+        this.number = number;
+        this.content = content;
+    }
+
+    public long getNumber() {
+        return number;
+    }
+
+    Rope getRope() {
+        return content;
+    }
+
+    // Returns the index of the counter that was incremented
+    int pin() {
+        int hash = System.identityHashCode(Thread.currentThread());
+        int index = ((hash ^ (hash >>> 16)) & (STRIPES - 1)) * PADDING;
+        pins.getAndIncrement(index);
+        return index;
+    }
+
+    void unpin(int index) {
+        pins.getAndDecrement(index);
+    }
+
+    // No pin taken after this is kept; a reader that pinned first is counted by tryReclaim
+    void close() {
+        closed = true;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    // Succeeds once, for a closed version whose counters are all zero
+    boolean tryReclaim() {
+        if (!closed) {
+            return false;
+        }
+        for (int i = 0; i < STRIPES; i++) {
+            if (pins.get(i * PADDING) != 0) {
+                return false;
+            }
+        }
+        return reclaimed.compareAndSet(false, true);
+    }
+}
+
+// A reader's hold on one version; closing it allows the version to be reclaimed
+class PinnedVersion implements AutoCloseable {
+    private final MvccEditor editor;
+    private final EditorVersion version;
+    private final int stripe;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    PinnedVersion(MvccEditor editor, EditorVersion version, int stripe) {
+        this.editor = editor;
+        this.version = version;
+        this.stripe = stripe;
+    }
+
+    public long getVersion() {
+        return version.getNumber();
+    }
+
+    public int length() {
+        return version.getRope().length();
+    }
+
+    public char charAt(int index) {
+        return version.getRope().charAt(index);
+    }
+
+    public String substring(int start, int end) {
+        return version.getRope().substring(start, end);
+    }
+
+    public String getContent() {
+        return version.getRope().toString();
+    }
+
+    public RopeMemento save() {
+        return new RopeMemento(version.getRope());
+    }
+
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            editor.unpin(version, stripe);
+        }
+    }
+}
+
+// Originator publishing immutable versions that readers pin without locking
+class MvccEditor {
+    private final AtomicReference<EditorVersion> current;
+    // Superseded versions that were still pinned when they were replaced
+    private final Set<EditorVersion> retained = ConcurrentHashMap.newKeySet();
+    private final LongAdder published = new LongAdder();
+    private final LongAdder reclaimed = new LongAdder();
+
+    public MvccEditor(String content) {
+        current = new AtomicReference<>(new EditorVersion(0, Rope.of(content)));
+    }
+
+    public PinnedVersion pin() {
+        while (true) {
+            EditorVersion version = current.get();
+            int stripe = version.pin();
+            if (!version.isClosed()) {
+                return new PinnedVersion(this, version, stripe);
+            }
+            // Replaced between reading it and pinning it, a newer version has been published
+            unpin(version, stripe);
+        }
+    }
+
+    public String getContent() {
+        try (PinnedVersion version = pin()) {
+            return version.getContent();
+        }
+    }
+
+    public long insert(int position, String text) {
+        return update(rope -> rope.insert(position, text));
+    }
+
+    public long delete(int start, int end) {
+        return update(rope -> rope.delete(start, end));
+    }
+
+    public long setContent(String content) {
+        Rope rope = Rope.of(content);
+        return update(previous -> rope);
+    }
+
+    public long restore(RopeMemento memento) {
+        return update(previous -> memento.getRope());
+    }
+
+    public RopeMemento save() {
+        return new RopeMemento(current.get().getRope());
+    }
+
+    // Applies an edit to the current version and publishes the result, retrying if another writer won
+    public long update(UnaryOperator<Rope> edit) {
+        while (true) {
+            EditorVersion previous = current.get();
+            EditorVersion next = new EditorVersion(previous.getNumber() + 1, edit.apply(previous.getRope()));
+            if (current.compareAndSet(previous, next)) {
+                published.increment();
+                retire(previous);
+                return next.getNumber();
+            }
+        }
+    }
+
+    public long getPublished() {
+        return published.sum();
+    }
+
+    public long getReclaimed() {
+        return reclaimed.sum();
+    }
+
+    // Superseded versions still held by readers
+    public int getRetainedVersions() {
+        return retained.size();
+    }
+
+    void unpin(EditorVersion version, int stripe) {
+        version.unpin(stripe);
+        if (version.isClosed()) {
+            reclaimIfUnpinned(version);
+        }
+    }
+
+    private void retire(EditorVersion version) {
+        // Registered before it is closed, so whoever reclaims it finds it here
+        retained.add(version);
+        version.close();
+        reclaimIfUnpinned(version);
+    }
+
+    private void reclaimIfUnpinned(EditorVersion version) {
+        if (version.tryReclaim()) {
+            retained.remove(version);
+            reclaimed.increment();
+        }
+    }
+}
+
+// Baseline: the original editor guarded by a read-write lock
+class LockedEditor {
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Editor editor = new Editor();
+
+    LockedEditor(String content) {
+        editor.setContent(content);
+    }
+
+    String substring(int start, int end) {
+        lock.readLock().lock();
+        try {
+            return editor.getContent().substring(start, end);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int length() {
+        lock.readLock().lock();
+        try {
+            return editor.getContent().length();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void insert(int position, String text) {
+        lock.writeLock().lock();
+        try {
+            String content = editor.getContent();
+            editor.setContent(content.substring(0, position) + text + content.substring(position));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
+
+// Client code
+public class MvccMementoPattern {
+    private static final int DOCUMENT_CHARS = 1_000_000;
+    private static final long RUN_NANOS = 1_000_000_000L;
+
+    // What a benchmark thread does against one of the editors
+    private interface Workload {
+        void write(Random random);
+
+        void read(Random random);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        MvccEditor editor = new MvccEditor("Version 1");
+        try (PinnedVersion reader = editor.pin()) {
+            editor.setContent("Version 2");
+            editor.insert(editor.save().length(), ", edited");
+            System.out.println("Reader pinned version " + reader.getVersion() + ": " + reader.getContent());
+            System.out.println("Current content: " + editor.getContent() + ", retained versions: "
+                    + editor.getRetainedVersions());
+        }
+        System.out.println("After the reader unpinned: retained " + editor.getRetainedVersions() + ", reclaimed "
+                + editor.getReclaimed() + " of " + editor.getPublished());
+
+        String initial = "x".repeat(DOCUMENT_CHARS);
+        System.out.printf("%-22s %8s %14s %12s%n", "editor", "readers", "reads/s", "writes/s");
+        for (int readers : new int[]{1, 2, 4, 8}) {
+            MvccEditor mvcc = new MvccEditor(initial);
+            run("mvcc rope", readers, new Workload() {
+                @Override
+                public void write(Random random) {
+                    mvcc.update(rope -> rope.insert(random.nextInt(rope.length()), "typed"));
+                }
+
+                @Override
+                public void read(Random random) {
+                    try (PinnedVersion version = mvcc.pin()) {
+                        int start = random.nextInt(version.length() - 100);
+                        version.substring(start, start + 100);
+                    }
+                }
+            });
+            System.out.printf("%-22s %8s retained after run: %d, reclaimed %,d of %,d%n", "", "",
+                    mvcc.getRetainedVersions(), mvcc.getReclaimed(), mvcc.getPublished());
+
+            LockedEditor locked = new LockedEditor(initial);
+            run("read-write lock", readers, new Workload() {
+                @Override
+                public void write(Random random) {
+                    locked.insert(random.nextInt(locked.length()), "typed");
+                }
+
+                @Override
+                public void read(Random random) {
+                    int start = random.nextInt(locked.length() - 100);
+                    locked.substring(start, start + 100);
+                }
+            });
+        }
+    }
+
+    private static void run(String name, int readers, Workload workload) throws InterruptedException {
+        LongAdder reads = new LongAdder();
+        LongAdder writes = new LongAdder();
+        long deadline = System.nanoTime() + RUN_NANOS;
+        List<Thread> threads = new ArrayList<>();
+        threads.add(new Thread(() -> {
+            Random random = new Random(1);
+            while (System.nanoTime() < deadline) {
+                workload.write(random);
+                writes.increment();
+            }
+        }));
+        for (int r = 0; r < readers; r++) {
+            int seed = r + 2;
+            threads.add(new Thread(() -> {
+                Random random = new Random(seed);
+                while (System.nanoTime() < deadline) {
+                    workload.read(random);
+                    reads.increment();
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double seconds = RUN_NANOS / 1e9;
+        System.out.printf("%-22s %8d %,14.0f %,12.0f%n", name, readers, reads.sum() / seconds,
+                writes.sum() / seconds);
+    }
+}
@@ -0,0 +1,156 @@
+package com.designpatterns.behavioral;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.LongSupplier;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/*
+Primitive specializations of the Iterator pattern. IntAggregate and LongAggregate store their elements in growable
+primitive arrays instead of a list of boxed objects, and hand out IntIterator/LongIterator instances that return
+primitives, so walking hundreds of millions of values allocates nothing and touches contiguous memory.
+Both the generic ConcreteAggregate and the primitive aggregates also expose sized Spliterators that split their range in
+halves, which lets them feed parallel streams with evenly balanced work.
+ Pros:
+No Boxing: Elements are stored and returned as primitives.
+Compact: Four or eight bytes per element instead of a reference plus a boxed object.
+Parallel Friendly: Even splits keep all cores busy on parallel streams.
+ Cons:
+Duplication: Every primitive type needs its own aggregate and iterator.
+Snapshot Semantics: Iterators and spliterators see the elements present when they were created.
+ */
+// Iterator interface for long elements
+interface LongIterator {
+    boolean hasNext();
+    long nextLong();
+}
+
+// Concrete Aggregate backed by a growable long array
+class LongAggregate {
+    // Largest array size the JVM reliably allows
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    private long[] items;
+    private int size;
+
+    public LongAggregate() {
+        this(16);
+    }
+
+    public LongAggregate(int initialCapacity) {
+        this.items = new long[Math.max(initialCapacity, 1)];
+    }
+
+    public void addItem(long item) {
+        if (size == items.length) {
+            items = Arrays.copyOf(items, grow(items.length));
+        }
+        items[size++] = item;
+    }
+
+    // Grows by half, capped at MAX_CAPACITY
+    private static int grow(int capacity) {
+        if (capacity >= MAX_CAPACITY) {
+            throw new IllegalStateException("Aggregate cannot hold more than " + MAX_CAPACITY + " elements");
+        }
+        return (int) Math.min((long) capacity + (capacity >> 1) + 1, MAX_CAPACITY);
+    }
+
+    public long get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return items[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public LongIterator createIterator() {
+        return new LongArrayIterator(items, size);
+    }
+
+    public Spliterator.OfLong spliterator() {
+        return Spliterators.spliterator(items, 0, size, Spliterator.ORDERED | Spliterator.IMMUTABLE);
+    }
+
+    public LongStream stream(boolean parallel) {
+        return StreamSupport.longStream(spliterator(), parallel);
+    }
+}
+
+// Concrete Iterator over a range of a long array
+class LongArrayIterator implements LongIterator {
+    private final long[] items;
+    private final int end;
+    private int position;
+
+    LongArrayIterator(long[] items, int end) {
+        this.items = items;
+        this.end = end;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return position < end;
+    }
+
+    @Override
+    public long nextLong() {
+        if (position < end) {
+            return items[position++];
+        }
+        throw new NoSuchElementException("No more elements in the collection");
+    }
+}
+
+// Client code
+public class PrimitiveIteratorPattern {
+    private static final int ELEMENTS = 20_000_000;
+
+    public static void main(String[] args) {
+        ConcreteAggregate<Integer> boxed = new ConcreteAggregate<>();
+        IntAggregate primitive = new IntAggregate(ELEMENTS);
+        for (int i = 0; i < ELEMENTS; i++) {
+            boxed.addItem(i);
+            primitive.addItem(i);
+        }
+
+        for (int round = 0; round < 3; round++) {
+            boolean report = round == 2;
+            time("boxed iterator", report, () -> {
+                long sum = 0;
+                Iterator<Integer> iterator = boxed.createIterator();
+                while (iterator.hasNext()) {
+                    sum += iterator.next();
+                }
+                return sum;
+            });
+            time("int iterator", report, () -> {
+                long sum = 0;
+                IntIterator iterator = primitive.createIterator();
+                while (iterator.hasNext()) {
+                    sum += iterator.nextInt();
+                }
+                return sum;
+            });
+            time("boxed stream", report, () -> boxed.stream(false).mapToLong(Integer::longValue).sum());
+            time("boxed parallel stream", report, () -> boxed.stream(true).mapToLong(Integer::longValue).sum());
+            time("int stream", report, () -> primitive.stream(false).asLongStream().sum());
+            time("int parallel stream", report, () -> primitive.stream(true).asLongStream().sum());
+        }
+    }
+
+    private static void time(String name, boolean report, LongSupplier work) {
+        long start = System.nanoTime();
+        long sum = work.getAsLong();
+        long elapsed = System.nanoTime() - start;
+        if (report) {
+            System.out.printf("%-22s sum=%d %8.1f ms%n", name, sum, elapsed / 1_000_000.0);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.designpatterns.behavioral;
+
+// Receiver without console output, used for measuring throughput, see CommandExecutorPattern
+class QuietLight extends Light {
+    private volatile boolean on;
+
+    @Override
+    public void turnOn() {
+        on = true;
+    }
+
+    @Override
+    public void turnOff() {
+        on = false;
+    }
+
+    public boolean isOn() {
+        return on;
+    }
+}
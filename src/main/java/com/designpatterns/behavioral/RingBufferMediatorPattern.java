@@ -0,0 +1,397 @@
+package com.designpatterns.behavioral;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+A high-throughput, room-based mediator built around a ring buffer in the style of the LMAX Disruptor. Senders claim a
+sequence number, fill the pre-allocated event in that slot and mark it available; nothing is allocated and no lock is
+taken on the send path. A fixed set of dispatcher threads follows the ring, each one delivering every message to its own
+share of the room's members. A dispatcher that falls behind catches up by processing every available message in one
+batch before advancing its sequence, and senders only wait when the slowest dispatcher is a full ring behind.
+Users join named rooms, and a message sent by a user is delivered to every other member of that user's room.
+A user that throws only loses that message, so its dispatcher keeps following the ring. Closing marks the cursor itself
+as closed: a sender that claims after that is rejected, and every message claimed before it is still delivered.
+ Pros:
+Throughput: The send path is a compare-and-set and a few writes into a pre-allocated slot.
+Fan-out: Delivery to large rooms is split across dispatcher threads.
+Bounded: The ring has a fixed size, so a slow dispatcher applies backpressure instead of growing a queue.
+ Cons:
+Busy Dispatchers: Dispatchers poll the ring and burn some CPU while idle.
+Shared Pace: One slow user slows down the dispatcher responsible for them and, once the ring is full, every sender.
+ */
+// Members of a room, replaced on every join or leave so dispatchers can read them without locking
+class ChatRoomMembers {
+    private volatile User[] members = new User[0];
+
+    synchronized void add(User user) {
+        User[] current = members;
+        User[] next = Arrays.copyOf(current, current.length + 1);
+        next[current.length] = user;
+        members = next;
+    }
+
+    synchronized void remove(User user) {
+        User[] current = members;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == user) {
+                User[] next = new User[current.length - 1];
+                System.arraycopy(current, 0, next, 0, i);
+                System.arraycopy(current, i + 1, next, i, current.length - i - 1);
+                members = next;
+                return;
+            }
+        }
+    }
+
+    User[] snapshot() {
+        return members;
+    }
+}
+
+// Concrete Mediator dispatching room messages through a ring buffer
+class RingBufferChatMediator implements ChatMediator, AutoCloseable {
+    private static final int LATENCY_SAMPLES = 1 << 16;
+    // Added to the cursor once close has started, no sequence can be claimed after that
+    private static final long CLOSED = 1L << 62;
+
+    // Pre-allocated slot of the ring
+    private static final class Event {
+        // Members when the message was sent; every dispatcher stripes over this same array
+        User[] members;
+        User sender;
+        String message;
+        long publishedNanos;
+    }
+
+    private final Event[] ring;
+    private final int mask;
+    private final int indexShift;
+    // Round number of the sequence last published into each slot
+    private final AtomicIntegerArray available;
+    private final AtomicLong cursor = new AtomicLong(-1);
+    private final Dispatcher[] dispatchers;
+    private volatile long cachedMinimum = -1;
+    private volatile boolean running = true;
+
+    private final Map<String, ChatRoomMembers> rooms = new ConcurrentHashMap<>();
+    private final Map<User, ChatRoomMembers> roomOfUser = new ConcurrentHashMap<>();
+    private final LongAdder published = new LongAdder();
+
+    public RingBufferChatMediator(int ringSize, int dispatcherCount) {
+        if (Integer.bitCount(ringSize) != 1) {
+            throw new IllegalArgumentException("ringSize must be a power of two");
+        }
+        ring = new Event[ringSize];
+        for (int i = 0; i < ringSize; i++) {
+            ring[i] = new Event();
+        }
+        mask = ringSize - 1;
+        indexShift = Integer.numberOfTrailingZeros(ringSize);
+        available = new AtomicIntegerArray(ringSize);
+        for (int i = 0; i < ringSize; i++) {
+            available.set(i, -1);
+        }
+        dispatchers = new Dispatcher[dispatcherCount];
+        for (int i = 0; i < dispatcherCount; i++) {
+            dispatchers[i] = new Dispatcher(i);
+            dispatchers[i].thread.start();
+        }
+    }
+
+    public void join(String room, User user) {
+        ChatRoomMembers members = rooms.computeIfAbsent(room, name -> new ChatRoomMembers());
+        ChatRoomMembers previous = roomOfUser.put(user, members);
+        if (previous != null) {
+            previous.remove(user);
+        }
+        members.add(user);
+    }
+
+    public void leave(User user) {
+        ChatRoomMembers members = roomOfUser.remove(user);
+        if (members != null) {
+            members.remove(user);
+        }
+    }
+
+    @Override
+    public void showMessage(User user, String message) {
+        ChatRoomMembers room = roomOfUser.get(user);
+        if (room == null) {
+            throw new IllegalStateException(user.getName() + " has not joined a room");
+        }
+        long sequence = claim();
+        Event event = ring[(int) sequence & mask];
+        event.members = room.snapshot();
+        event.sender = user;
+        event.message = message;
+        event.publishedNanos = System.nanoTime();
+        available.lazySet((int) sequence & mask, (int) (sequence >>> indexShift));
+        published.increment();
+    }
+
+    public long getPublished() {
+        return published.sum();
+    }
+
+    public long getDelivered() {
+        long delivered = 0;
+        for (Dispatcher dispatcher : dispatchers) {
+            delivered += dispatcher.delivered.sum();
+        }
+        return delivered;
+    }
+
+    // Deliveries lost because the receiving user threw
+    public long getFailed() {
+        long failed = 0;
+        for (Dispatcher dispatcher : dispatchers) {
+            failed += dispatcher.failed.sum();
+        }
+        return failed;
+    }
+
+    // Latency from publishing a message until a dispatcher finished delivering its share, at the given percentile
+    public long latencyPercentileNanos(double percentile) {
+        long[] all = new long[0];
+        for (Dispatcher dispatcher : dispatchers) {
+            long[] samples = dispatcher.latencySamples();
+            long[] merged = Arrays.copyOf(all, all.length + samples.length);
+            System.arraycopy(samples, 0, merged, all.length, samples.length);
+            all = merged;
+        }
+        if (all.length == 0) {
+            return 0;
+        }
+        Arrays.sort(all);
+        int rank = (int) Math.ceil(percentile / 100.0 * all.length);
+        return all[Math.min(Math.max(rank, 1), all.length) - 1];
+    }
+
+    // Waits until every published message has been delivered
+    public void awaitDelivery() {
+        long target = lastClaimed(cursor.get());
+        while (minimumDispatcherSequence() < target) {
+            LockSupport.parkNanos(100_000);
+        }
+    }
+
+    @Override
+    public void close() {
+        long current;
+        do {
+            current = cursor.get();
+        } while (!isClosed(current) && !cursor.compareAndSet(current, current + CLOSED));
+        // Senders that claimed before the cursor was closed may still be filling their slots; wait for them too
+        awaitDelivery();
+        running = false;
+        for (Dispatcher dispatcher : dispatchers) {
+            try {
+                dispatcher.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private long claim() {
+        while (true) {
+            long current = cursor.get();
+            if (isClosed(current)) {
+                throw new IllegalStateException("Mediator is closed");
+            }
+            long next = current + 1;
+            long wrapPoint = next - ring.length;
+            if (wrapPoint > cachedMinimum) {
+                long minimum = minimumDispatcherSequence();
+                cachedMinimum = minimum;
+                if (wrapPoint > minimum) {
+                    // The slowest dispatcher has not released this slot yet
+                    Thread.onSpinWait();
+                    continue;
+                }
+            }
+            if (cursor.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    // The cursor starts at -1, so a closed cursor is at least CLOSED - 1
+    private static boolean isClosed(long cursorValue) {
+        return cursorValue >= CLOSED - 1;
+    }
+
+    private static long lastClaimed(long cursorValue) {
+        return isClosed(cursorValue) ? cursorValue - CLOSED : cursorValue;
+    }
+
+    private long minimumDispatcherSequence() {
+        long minimum = Long.MAX_VALUE;
+        for (Dispatcher dispatcher : dispatchers) {
+            minimum = Math.min(minimum, dispatcher.sequence.get());
+        }
+        return minimum;
+    }
+
+    private boolean isAvailable(long sequence) {
+        return available.get((int) sequence & mask) == (int) (sequence >>> indexShift);
+    }
+
+    // Follows the ring and delivers to members whose index falls into its share
+    private final class Dispatcher {
+        final int id;
+        final Thread thread;
+        final AtomicLong sequence = new AtomicLong(-1);
+        final LongAdder delivered = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        private final long[] latencies = new long[LATENCY_SAMPLES];
+        private long latencyCount;
+
+        Dispatcher(int id) {
+            this.id = id;
+            this.thread = new Thread(this::run, "chat-dispatcher-" + id);
+            this.thread.setDaemon(true);
+        }
+
+        private void run() {
+            long next = 0;
+            while (true) {
+                long highest = next - 1;
+                while (isAvailable(highest + 1)) {
+                    highest++;
+                }
+                if (highest < next) {
+                    if (!running) {
+                        return;
+                    }
+                    LockSupport.parkNanos(10_000);
+                    continue;
+                }
+                // Deliver the whole batch, then release it with a single sequence update
+                try {
+                    for (long s = next; s <= highest; s++) {
+                        deliver(ring[(int) s & mask]);
+                    }
+                } finally {
+                    // Senders must never wait on a dispatcher that stopped halfway through a batch
+                    sequence.set(highest);
+                }
+                next = highest + 1;
+            }
+        }
+
+        private void deliver(Event event) {
+            User[] members = event.members;
+            long count = 0;
+            for (int i = id; i < members.length; i += dispatchers.length) {
+                User member = members[i];
+                if (member != event.sender) {
+                    try {
+                        member.receive(event.sender, event.message);
+                        count++;
+                    } catch (RuntimeException e) {
+                        failed.increment();
+                    }
+                }
+            }
+            delivered.add(count);
+            synchronized (latencies) {
+                latencies[(int) (latencyCount++ % LATENCY_SAMPLES)] = System.nanoTime() - event.publishedNanos;
+            }
+        }
+
+        long[] latencySamples() {
+            synchronized (latencies) {
+                return Arrays.copyOf(latencies, (int) Math.min(latencyCount, LATENCY_SAMPLES));
+            }
+        }
+    }
+}
+
+// Client Code
+public class RingBufferMediatorPattern {
+    public static void main(String[] args) throws InterruptedException {
+        try (RingBufferChatMediator mediator = new RingBufferChatMediator(1024, 2)) {
+            User alice = new User("Alice", mediator);
+            User bob = new User("Bob", mediator);
+            User charlie = new User("Charlie", mediator);
+            mediator.join("design", alice);
+            mediator.join("design", bob);
+            mediator.join("random", charlie);
+            alice.sendMessage("Hello, Bob!");
+            charlie.sendMessage("Anyone here?");
+        }
+
+        // A user that throws must not stop its dispatcher, and nothing can be sent once closing has begun
+        RingBufferChatMediator closing = new RingBufferChatMediator(8, 2);
+        User sender = new CountingUser("sender", closing);
+        closing.join("room", sender);
+        closing.join("room", new User("broken", closing) {
+            @Override
+            public void receive(User from, String message) {
+                throw new IllegalStateException("cannot handle " + message);
+            }
+        });
+        for (int i = 0; i < 100; i++) {
+            sender.sendMessage("message " + i);
+        }
+        closing.close();
+        try {
+            sender.sendMessage("too late");
+        } catch (IllegalStateException e) {
+            System.out.printf("published %d, failed %d, then: %s%n", closing.getPublished(), closing.getFailed(),
+                    e.getMessage());
+        }
+
+        System.out.printf("%10s %11s %14s %16s %10s%n", "room size", "publishers", "messages/s", "deliveries/s",
+                "p99 (us)");
+        for (int roomSize : new int[]{10, 1_000, 5_000}) {
+            for (int publishers : new int[]{1, 4}) {
+                benchmark(roomSize, publishers);
+            }
+        }
+    }
+
+    private static void benchmark(int roomSize, int publishers) throws InterruptedException {
+        int messagesPerPublisher = 2_000_000 / roomSize + 1_000;
+        try (RingBufferChatMediator mediator = new RingBufferChatMediator(4096, 2)) {
+            User[] senders = new User[publishers];
+            for (int i = 0; i < roomSize; i++) {
+                User user = new CountingUser("user-" + i, mediator);
+                mediator.join("room", user);
+                if (i < publishers) {
+                    senders[i] = user;
+                }
+            }
+
+            Thread[] threads = new Thread[publishers];
+            long start = System.nanoTime();
+            for (int p = 0; p < publishers; p++) {
+                User sender = senders[p];
+                threads[p] = new Thread(() -> {
+                    for (int i = 0; i < messagesPerPublisher; i++) {
+                        sender.sendMessage("message");
+                    }
+                });
+                threads[p].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            mediator.awaitDelivery();
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.printf("%10d %11d %,14.0f %,16.0f %10.1f%n", roomSize, publishers,
+                    mediator.getPublished() / seconds, mediator.getDelivered() / seconds,
+                    mediator.latencyPercentileNanos(99) / 1_000.0);
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package com.designpatterns.behavioral;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/*
+A chat room that remembers its recent messages for users who join late. The history lives in a fixed-size ring inside a
+direct ByteBuffer, outside the Java heap, where each message is stored as a small record: its length, the sender's id in
+the room and the UTF-8 bytes of the text. When a new message does not fit, the oldest records are evicted, so every
+room uses exactly the number of bytes it was given no matter how many or how long the messages are.
+Replaying the history hands each record to a visitor as a read-only view of the ring, so bulk consumers can copy or
+forward the raw bytes without creating a String per message. A record that would run past the end of the buffer is
+placed at the start instead, and the unused tail is marked as padding.
+The room maps sender ids to users in a small table. An id is released as soon as its user has left and the ring holds
+no more of its records, and it is reused by the next user that joins, so the table is bounded by the members plus the
+senders still in the history.
+ Pros:
+Predictable Memory: Each room's history costs a fixed number of off-heap bytes.
+GC Friendly: Old messages are not heap objects, so large histories do not add to garbage collection work.
+Fast Replay: Records are read in place without decoding or copying.
+ Cons:
+Byte Budget: The number of messages kept depends on their length.
+Decoding Cost: Users that need Strings still pay to decode each replayed message.
+ */
+// Receives history records; the payload view is only valid during the call
+interface HistoryVisitor {
+    void visit(int senderId, ByteBuffer utf8);
+}
+
+// Fixed-size ring of [length][sender id][UTF-8 bytes] records in off-heap memory
+class RoomHistory {
+    private static final int HEADER_BYTES = 8;
+    private static final int PADDING_MARKER = -1;
+
+    private final ByteBuffer buffer;
+    // Read-only view handed to visitors, repositioned for every record
+    private final ByteBuffer view;
+    private final int capacity;
+    // Told the sender id of every evicted record
+    private final IntConsumer evictionListener;
+    private int readPosition;
+    private int writePosition;
+    private int usedBytes;
+    private int count;
+    private long evicted;
+
+    public RoomHistory(int capacityBytes) {
+        this(capacityBytes, senderId -> { });
+    }
+
+    public RoomHistory(int capacityBytes, IntConsumer evictionListener) {
+        if (capacityBytes < HEADER_BYTES) {
+            throw new IllegalArgumentException("History needs at least " + HEADER_BYTES + " bytes");
+        }
+        this.capacity = capacityBytes;
+        this.buffer = ByteBuffer.allocateDirect(capacityBytes);
+        this.view = buffer.asReadOnlyBuffer();
+        this.evictionListener = evictionListener;
+    }
+
+    public void append(int senderId, String message) {
+        byte[] utf8 = message.getBytes(StandardCharsets.UTF_8);
+        int size = HEADER_BYTES + utf8.length;
+        if (size > capacity) {
+            throw new IllegalArgumentException("Message of " + utf8.length + " bytes exceeds the history capacity");
+        }
+        int tail = capacity - writePosition;
+        if (tail < size) {
+            // Not enough room before the end: pad the tail and start over at the beginning
+            ensureFree(tail);
+            if (tail >= Integer.BYTES) {
+                buffer.putInt(writePosition, PADDING_MARKER);
+            }
+            usedBytes += tail;
+            writePosition = 0;
+        }
+        ensureFree(size);
+        buffer.putInt(writePosition, utf8.length);
+        buffer.putInt(writePosition + Integer.BYTES, senderId);
+        buffer.put(writePosition + HEADER_BYTES, utf8);
+        usedBytes += size;
+        count++;
+        writePosition += size;
+        if (writePosition == capacity) {
+            writePosition = 0;
+        }
+    }
+
+    // Visits the retained messages from oldest to newest
+    public void replay(HistoryVisitor visitor) {
+        int position = readPosition;
+        for (int i = 0; i < count; i++) {
+            if (isPadding(position)) {
+                position = 0;
+            }
+            int length = buffer.getInt(position);
+            int senderId = buffer.getInt(position + Integer.BYTES);
+            int start = position + HEADER_BYTES;
+            view.limit(start + length).position(start);
+            visitor.visit(senderId, view);
+            position = start + length;
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int getCapacityBytes() {
+        return capacity;
+    }
+
+    public int getUsedBytes() {
+        return usedBytes;
+    }
+
+    public long getEvicted() {
+        return evicted;
+    }
+
+    private void ensureFree(int bytes) {
+        while (capacity - usedBytes < bytes) {
+            evictOldest();
+        }
+    }
+
+    private void evictOldest() {
+        if (isPadding(readPosition)) {
+            usedBytes -= capacity - readPosition;
+            readPosition = 0;
+            return;
+        }
+        int size = HEADER_BYTES + buffer.getInt(readPosition);
+        int senderId = buffer.getInt(readPosition + Integer.BYTES);
+        usedBytes -= size;
+        count--;
+        evicted++;
+        readPosition += size;
+        if (readPosition == capacity) {
+            readPosition = 0;
+        }
+        evictionListener.accept(senderId);
+    }
+
+    private boolean isPadding(int position) {
+        return capacity - position < HEADER_BYTES || buffer.getInt(position) == PADDING_MARKER;
+    }
+}
+
+// Concrete Mediator that replays its history to users when they join
+class HistoryChatRoom implements ChatMediator {
+    private final RoomHistory history;
+    // Index in this list is the sender id stored in the history, null while the id is free
+    private final List<User> knownUsers = new ArrayList<>();
+    private final Map<User, Integer> senderIds = new HashMap<>();
+    // Records in the history per sender id
+    private int[] retained = new int[16];
+    private final ArrayDeque<Integer> freeIds = new ArrayDeque<>();
+    private final List<User> members = new ArrayList<>();
+
+    public HistoryChatRoom(int historyBytes) {
+        this.history = new RoomHistory(historyBytes, this::evicted);
+    }
+
+    public synchronized void join(User user) {
+        history.replay((senderId, utf8) ->
+                user.receive(knownUsers.get(senderId), StandardCharsets.UTF_8.decode(utf8).toString()));
+        if (!senderIds.containsKey(user)) {
+            senderIds.put(user, assignId(user));
+        }
+        members.add(user);
+    }
+
+    public synchronized void leave(User user) {
+        members.remove(user);
+        Integer senderId = senderIds.get(user);
+        if (senderId != null) {
+            releaseIfUnused(senderId);
+        }
+    }
+
+    // Bulk replay for consumers that work on the raw bytes
+    public synchronized void replay(HistoryVisitor visitor) {
+        history.replay(visitor);
+    }
+
+    public RoomHistory getHistory() {
+        return history;
+    }
+
+    // Sender ids in use, by members or by records still in the history
+    public synchronized int getSenderIds() {
+        return senderIds.size();
+    }
+
+    private int assignId(User user) {
+        if (!freeIds.isEmpty()) {
+            int senderId = freeIds.pop();
+            knownUsers.set(senderId, user);
+            return senderId;
+        }
+        int senderId = knownUsers.size();
+        knownUsers.add(user);
+        if (senderId == retained.length) {
+            retained = Arrays.copyOf(retained, senderId * 2);
+        }
+        return senderId;
+    }
+
+    // Called by the history for every record it drops
+    private void evicted(int senderId) {
+        retained[senderId]--;
+        releaseIfUnused(senderId);
+    }
+
+    private void releaseIfUnused(int senderId) {
+        User user = knownUsers.get(senderId);
+        if (retained[senderId] == 0 && !members.contains(user)) {
+            knownUsers.set(senderId, null);
+            senderIds.remove(user);
+            freeIds.push(senderId);
+        }
+    }
+
+    @Override
+    public synchronized void showMessage(User user, String message) {
+        Integer senderId = senderIds.get(user);
+        if (senderId == null || !members.contains(user)) {
+            throw new IllegalStateException(user.getName() + " has not joined the room");
+        }
+        history.append(senderId, message);
+        retained[senderId]++;
+        for (User member : members) {
+            if (member != user) {
+                member.receive(user, message);
+            }
+        }
+    }
+}
+
+// Client Code
+public class RoomHistoryPattern {
+    private static final int ROOMS = 200;
+    private static final int HISTORY_BYTES = 64 * 1024;
+    private static final int MESSAGES_PER_ROOM = 20_000;
+
+    public static void main(String[] args) {
+        HistoryChatRoom room = new HistoryChatRoom(64);
+        User alice = new User("Alice", room);
+        User bob = new User("Bob", room);
+        room.join(alice);
+        room.join(bob);
+        alice.sendMessage("Hello, Bob!");
+        bob.sendMessage("Hey, Alice! Did you see the release notes?");
+        alice.sendMessage("Not yet");
+        System.out.println("Charlie joins, the history keeps " + room.getHistory().size() + " of 3 messages:");
+        room.join(new User("Charlie", room));
+
+        // Many rooms, each keeping a bounded history: heap Strings versus off-heap rings
+        List<HistoryChatRoom> rooms = new ArrayList<>();
+        for (int r = 0; r < ROOMS; r++) {
+            HistoryChatRoom historyRoom = new HistoryChatRoom(HISTORY_BYTES);
+            User writer = new CountingUser("writer", historyRoom);
+            historyRoom.join(writer);
+            for (int i = 0; i < MESSAGES_PER_ROOM; i++) {
+                writer.sendMessage("room " + r + " message " + i);
+            }
+            rooms.add(historyRoom);
+        }
+        int kept = rooms.get(0).getHistory().size();
+
+        long heapBefore = usedHeap();
+        List<ArrayDeque<String>> heapHistories = new ArrayList<>();
+        for (int r = 0; r < ROOMS; r++) {
+            ArrayDeque<String> heapHistory = new ArrayDeque<>();
+            for (int i = MESSAGES_PER_ROOM - kept; i < MESSAGES_PER_ROOM; i++) {
+                heapHistory.addLast("room " + r + " message " + i);
+            }
+            heapHistories.add(heapHistory);
+        }
+        long heapBytes = usedHeap() - heapBefore;
+        System.out.printf("%d rooms x %,d messages: off-heap rings %,d bytes, heap Strings about %,d bytes (%d deques)%n",
+                ROOMS, kept, (long) ROOMS * HISTORY_BYTES, heapBytes, heapHistories.size());
+
+        for (int round = 0; round < 5; round++) {
+            boolean report = round == 4;
+            long[] bytes = new long[1];
+            long start = System.nanoTime();
+            for (HistoryChatRoom historyRoom : rooms) {
+                historyRoom.replay((senderId, utf8) -> bytes[0] += utf8.remaining());
+            }
+            long rawNanos = System.nanoTime() - start;
+
+            CountingUser lateJoiner = null;
+            start = System.nanoTime();
+            for (HistoryChatRoom historyRoom : rooms) {
+                lateJoiner = new CountingUser("late", historyRoom);
+                historyRoom.join(lateJoiner);
+                historyRoom.leave(lateJoiner);
+            }
+            long joinNanos = System.nanoTime() - start;
+            if (report) {
+                long messages = 0;
+                for (HistoryChatRoom historyRoom : rooms) {
+                    messages += historyRoom.getHistory().size();
+                }
+                System.out.printf("raw replay: %,d bytes in %6.1f ms (%,.0f msgs/s)%n",
+                        bytes[0], rawNanos / 1e6, messages / (rawNanos / 1e9));
+                System.out.printf("join replay decoding Strings: %6.1f ms (%,.0f msgs/s), last joiner got %,d%n",
+                        joinNanos / 1e6, messages / (joinNanos / 1e9), lateJoiner.getReceived());
+                System.out.printf("sender ids per room after %d late joiners: %d%n",
+                        round + 1, rooms.get(0).getSenderIds());
+            }
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
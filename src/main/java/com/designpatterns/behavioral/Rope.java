@@ -0,0 +1,199 @@
+package com.designpatterns.behavioral;
+
+// Immutable, height-balanced tree of text chunks, see RopeMementoPattern
+abstract class Rope {
+    static final int LEAF_MAX = 1024;
+    static final Rope EMPTY = new Leaf("");
+
+    abstract int length();
+
+    abstract int height();
+
+    abstract char charAt(int index);
+
+    abstract void appendTo(StringBuilder builder, int start, int end);
+
+    static Rope of(String text) {
+        if (text.length() <= LEAF_MAX) {
+            return new Leaf(text);
+        }
+        int middle = text.length() / 2;
+        return new Branch(of(text.substring(0, middle)), of(text.substring(middle)));
+    }
+
+    Rope insert(int index, String text) {
+        checkPosition(index);
+        Rope[] parts = split(this, index);
+        return join(join(parts[0], of(text)), parts[1]);
+    }
+
+    Rope delete(int start, int end) {
+        checkPosition(start);
+        checkPosition(end);
+        Rope[] tail = split(this, end);
+        Rope[] head = split(tail[0], start);
+        return join(head[0], tail[1]);
+    }
+
+    String substring(int start, int end) {
+        checkPosition(start);
+        checkPosition(end);
+        StringBuilder builder = new StringBuilder(end - start);
+        appendTo(builder, start, end);
+        return builder.toString();
+    }
+
+    @Override
+    public String toString() {
+        return substring(0, length());
+    }
+
+    private void checkPosition(int index) {
+        if (index < 0 || index > length()) {
+            throw new IndexOutOfBoundsException("Position " + index + " out of bounds for length " + length());
+        }
+    }
+
+    // Splits at index into the text before it and the text from it on
+    static Rope[] split(Rope rope, int index) {
+        if (rope instanceof Leaf) {
+            String text = ((Leaf) rope).text;
+            return new Rope[]{new Leaf(text.substring(0, index)), new Leaf(text.substring(index))};
+        }
+        Branch branch = (Branch) rope;
+        int leftLength = branch.left.length();
+        if (index < leftLength) {
+            Rope[] parts = split(branch.left, index);
+            return new Rope[]{parts[0], join(parts[1], branch.right)};
+        }
+        if (index > leftLength) {
+            Rope[] parts = split(branch.right, index - leftLength);
+            return new Rope[]{join(branch.left, parts[0]), parts[1]};
+        }
+        return new Rope[]{branch.left, branch.right};
+    }
+
+    // Concatenates two ropes, descending the taller one so the result stays balanced
+    static Rope join(Rope left, Rope right) {
+        if (left.length() == 0) {
+            return right;
+        }
+        if (right.length() == 0) {
+            return left;
+        }
+        if (left instanceof Leaf && right instanceof Leaf && left.length() + right.length() <= LEAF_MAX) {
+            return new Leaf(((Leaf) left).text + ((Leaf) right).text);
+        }
+        if (left.height() > right.height() + 1) {
+            Branch branch = (Branch) left;
+            return balance(branch.left, join(branch.right, right));
+        }
+        if (right.height() > left.height() + 1) {
+            Branch branch = (Branch) right;
+            return balance(join(left, branch.left), branch.right);
+        }
+        return new Branch(left, right);
+    }
+
+    // Joins two subtrees whose heights differ by at most two, rotating when they differ by two
+    private static Rope balance(Rope left, Rope right) {
+        if (left.height() > right.height() + 1) {
+            Branch branch = (Branch) left;
+            if (branch.left.height() >= branch.right.height()) {
+                return new Branch(branch.left, new Branch(branch.right, right));
+            }
+            Branch inner = (Branch) branch.right;
+            return new Branch(new Branch(branch.left, inner.left), new Branch(inner.right, right));
+        }
+        if (right.height() > left.height() + 1) {
+            Branch branch = (Branch) right;
+            if (branch.right.height() >= branch.left.height()) {
+                return new Branch(new Branch(left, branch.left), branch.right);
+            }
+            Branch inner = (Branch) branch.left;
+            return new Branch(new Branch(left, inner.left), new Branch(inner.right, branch.right));
+        }
+        return new Branch(left, right);
+    }
+
+    // A run of text
+    static final class Leaf extends Rope {
+        final String text;
+
+        Leaf(String text) {
+            this.text = text;
+        }
+
+        @Override
+        int length() {
+            return text.length();
+        }
+
+        @Override
+        int height() {
+            return 0;
+        }
+
+        @Override
+        char charAt(int index) {
+            return text.charAt(index);
+        }
+
+        @Override
+        void appendTo(StringBuilder builder, int start, int end) {
+            builder.append(text, start, end);
+        }
+    }
+
+    // Concatenation of two ropes
+    static final class Branch extends Rope {
+        final Rope left;
+        final Rope right;
+        private final int length;
+        private final int height;
+
+        Branch(Rope left, Rope right) {
+            this.left = left;
+            this.right = right;
+            this.length = left.length() + right.length();
+            this.height = Math.max(left.height(), right.height()) + 1;
+        }
+
+        @Override
+        int length() {
+            return length;
+        }
+
+        @Override
+        int height() {
+            return height;
+        }
+
+        @Override
+        char charAt(int index) {
+            Rope node = this;
+            while (node instanceof Branch) {
+                Branch branch = (Branch) node;
+                int leftLength = branch.left.length();
+                if (index < leftLength) {
+                    node = branch.left;
+                } else {
+                    index -= leftLength;
+                    node = branch.right;
+                }
+            }
+            return node.charAt(index);
+        }
+
+        @Override
+        void appendTo(StringBuilder builder, int start, int end) {
+            int leftLength = left.length();
+            if (start < leftLength) {
+                left.appendTo(builder, start, Math.min(end, leftLength));
+            }
+            if (end > leftLength) {
+                right.appendTo(builder, Math.max(start - leftLength, 0), end - leftLength);
+            }
+        }
+    }
+}
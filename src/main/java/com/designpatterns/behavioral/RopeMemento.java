@@ -0,0 +1,22 @@
+package com.designpatterns.behavioral;
+
+// Memento holding a shared, immutable version of the content, see RopeMementoPattern
+class RopeMemento {
+    private final Rope content;
+
+    RopeMemento(Rope content) {
+        this.content = content;
+    }
+
+    Rope getRope() {
+        return content;
+    }
+
+    public int length() {
+        return content.length();
+    }
+
+    public String getContent() {
+        return content.toString();
+    }
+}
@@ -0,0 +1,165 @@
+package com.designpatterns.behavioral;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+/*
+An editor whose content is a persistent rope: an immutable, height-balanced tree whose leaves hold short runs of text.
+Inserting or deleting text splits the tree at the edit position and joins the pieces back together, which creates only
+the O(log n) nodes along the changed path and shares every other node with the previous version. Because no version is
+ever modified, a memento is just a reference to the current root, so saving is O(1) and a checkpoint after every
+keystroke costs only the few nodes that the keystroke replaced.
+Leaves hold at most LEAF_MAX characters, and two adjacent leaves are merged whenever a join finds they fit into one, so
+small edits do not fragment the tree into tiny leaves.
+ Pros:
+Cheap Snapshots: Saving and restoring are O(1) and versions share all unchanged text.
+Fast Edits: Inserts and deletes are O(log n) regardless of the document size.
+Immutable: Snapshots can be read from any thread without copying.
+ Cons:
+Slower Reads: Reading a character walks the tree instead of indexing an array.
+Materializing: getContent() still has to build a String of the whole document.
+ */
+// Originator editing its content in place of replacing it
+class RopeEditor {
+    private Rope content = Rope.EMPTY;
+
+    public void setContent(String content) {
+        this.content = Rope.of(content);
+    }
+
+    public String getContent() {
+        return content.toString();
+    }
+
+    public void insert(int position, String text) {
+        content = content.insert(position, text);
+    }
+
+    public void delete(int start, int end) {
+        content = content.delete(start, end);
+    }
+
+    public int length() {
+        return content.length();
+    }
+
+    public char charAt(int index) {
+        if (index < 0 || index >= content.length()) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + content.length());
+        }
+        return content.charAt(index);
+    }
+
+    public String substring(int start, int end) {
+        return content.substring(start, end);
+    }
+
+    public RopeMemento save() {
+        return new RopeMemento(content);
+    }
+
+    public void restore(RopeMemento memento) {
+        content = memento.getRope();
+    }
+}
+
+// Client code
+public class RopeMementoPattern {
+    public static void main(String[] args) {
+        RopeEditor editor = new RopeEditor();
+        Deque<RopeMemento> history = new ArrayDeque<>();
+        editor.setContent("Version 1");
+        history.push(editor.save());
+        editor.insert(editor.length(), " and 2");
+        history.push(editor.save());
+        editor.delete(0, "Version 1 and ".length());
+        editor.insert(0, "Only ");
+        System.out.println("Current Content: " + editor.getContent());
+        editor.restore(history.pop());
+        System.out.println("After undo: " + editor.getContent());
+
+        System.out.printf("%-10s %-26s %12s %12s %14s%n", "document", "editor", "edit (us)", "save (us)",
+                "retained (MB)");
+        benchmark("1 KB", 1_000, 100_000, 100_000);
+        benchmark("1 MB", 1_000_000, 100_000, 500);
+        benchmark("100 MB", 100_000_000, 20_000, 4);
+    }
+
+    // Random small inserts and deletes, saving a memento after every edit and keeping all of them
+    private static void benchmark(String name, int size, int ropeEdits, int stringEdits) {
+        Random random = new Random(7);
+        char[] chars = new char[size];
+        for (int i = 0; i < size; i++) {
+            chars[i] = (char) ('a' + random.nextInt(26));
+        }
+        String initial = new String(chars);
+        chars = null;
+
+        long heapBefore = usedHeap();
+        RopeEditor ropeEditor = new RopeEditor();
+        ropeEditor.setContent(initial);
+        List<RopeMemento> ropeHistory = new ArrayList<>(ropeEdits);
+        long editNanos = 0;
+        long saveNanos = 0;
+        for (int i = 0; i < ropeEdits; i++) {
+            int position = random.nextInt(ropeEditor.length());
+            long start = System.nanoTime();
+            if ((i & 1) == 0) {
+                ropeEditor.insert(position, "typed");
+            } else {
+                ropeEditor.delete(position, Math.min(position + 5, ropeEditor.length()));
+            }
+            long edited = System.nanoTime();
+            ropeHistory.add(ropeEditor.save());
+            saveNanos += System.nanoTime() - edited;
+            editNanos += edited - start;
+        }
+        long ropeBytes = usedHeap() - heapBefore;
+        print(name, "rope, " + ropeHistory.size() + " saves", editNanos / ropeEdits, saveNanos / ropeEdits,
+                ropeBytes);
+        ropeHistory = null;
+        ropeEditor = null;
+
+        // The original editor: every edit builds a new String, every memento keeps a full copy alive
+        heapBefore = usedHeap();
+        Editor editor = new Editor();
+        editor.setContent(initial);
+        initial = null;
+        List<EditorMemento> stringHistory = new ArrayList<>(stringEdits);
+        editNanos = 0;
+        saveNanos = 0;
+        for (int i = 0; i < stringEdits; i++) {
+            String content = editor.getContent();
+            int position = random.nextInt(content.length());
+            long start = System.nanoTime();
+            if ((i & 1) == 0) {
+                editor.setContent(content.substring(0, position) + "typed" + content.substring(position));
+            } else {
+                editor.setContent(content.substring(0, position)
+                        + content.substring(Math.min(position + 5, content.length())));
+            }
+            long edited = System.nanoTime();
+            stringHistory.add(editor.save());
+            saveNanos += System.nanoTime() - edited;
+            editNanos += edited - start;
+        }
+        long stringBytes = usedHeap() - heapBefore;
+        print(name, "String, " + stringHistory.size() + " saves", editNanos / stringEdits,
+                saveNanos / stringEdits, stringBytes);
+        stringHistory.clear();
+    }
+
+    private static void print(String name, String editor, long editNanos, long saveNanos, long bytes) {
+        System.out.printf("%-10s %-26s %12.2f %12.3f %14.1f%n", name, editor, editNanos / 1e3, saveNanos / 1e3,
+                bytes / 1e6);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,31 @@
+package com.designpatterns.behavioral;
+
+// Handler that takes care of exactly one severity and passes everything else along, see ChainOfResponsibility
+abstract class SeverityHandler extends SupportHandler {
+    private final String severity;
+
+    protected SeverityHandler(String severity) {
+        this.severity = severity;
+    }
+
+    public String getSeverity() {
+        return severity;
+    }
+
+    @Override
+    public void handleRequest(SupportTicket ticket) {
+        if (ticket.getSeverity().equals(severity)) {
+            handle(ticket);
+        } else if (nextHandler != null) {
+            nextHandler.handleRequest(ticket);
+        } else {
+            unhandled(ticket);
+        }
+    }
+
+    protected abstract void handle(SupportTicket ticket);
+
+    // Called on the last handler of the chain when nobody took the ticket
+    protected void unhandled(SupportTicket ticket) {
+    }
+}
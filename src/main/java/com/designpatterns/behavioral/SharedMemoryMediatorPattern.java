@@ -0,0 +1,678 @@
+package com.designpatterns.behavioral;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+A mediator that connects users living in different JVMs on the same host. All processes map the same file, which holds
+a multi-producer ring of fixed-size message slots and a small table of participants. A sender claims the next sequence
+number with a compare-and-set on the shared tail, moves the slot's state from the previous lap to a writing marker
+that names its participant, copies its message into the slot and then publishes the slot by storing the sequence number
+into the state with volatile semantics; a reader thread in every process waits for that state with acquire semantics,
+so it never sees a partially written message. Each participant records the next
+sequence it will read, and senders never overwrite a slot that a live participant still has to read.
+A participant is considered crashed when its process is gone or its heartbeat is older than the timeout: senders then
+stop waiting for it, a message claimed by a crashed sender is abandoned after the timeout, and a participant reopened
+under the same name resumes from its recorded position and counts the messages it lost while it was away.
+A user that replies from inside receive runs on the reader thread, which is the only thread that can free slots for
+its own participant, so such replies are queued and published by the reader between reads instead of waiting for room.
+ Pros:
+Low Latency: Messages cross processes through shared memory without system calls.
+No Broker: Every process talks directly to the shared file.
+Crash Tolerant: A dead process neither blocks the others nor loses its place.
+ Cons:
+Single Host: Only processes that can map the same file can take part.
+Fixed Slots: Messages must fit into a slot.
+Polling: Reader threads spin or park while waiting for messages.
+Stalled Writers: A sender paused halfway through writing a slot holds up readers until it finishes or exits.
+ */
+// Concrete Mediator exchanging messages with other processes through a memory-mapped ring
+class SharedMemoryChatMediator implements ChatMediator, AutoCloseable {
+    private static final long MAGIC = 0x43484154524E4731L;
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    // File layout, every shared counter on its own cache line
+    private static final int MAGIC_OFFSET = 0;
+    private static final int SLOT_COUNT_OFFSET = 8;
+    private static final int TAIL_OFFSET = 64;
+    private static final int PARTICIPANTS_OFFSET = 128;
+    private static final int MAX_PARTICIPANTS = 16;
+    private static final int PARTICIPANT_BYTES = 64;
+    private static final int SLOTS_OFFSET = PARTICIPANTS_OFFSET + MAX_PARTICIPANTS * PARTICIPANT_BYTES;
+
+    // Participant entry: [pid][heartbeat millis][next sequence to read][name length][name]
+    private static final int PID = 0;
+    private static final int HEARTBEAT = 8;
+    private static final int CONSUMED = 16;
+    private static final int NAME_LENGTH = 24;
+    private static final int NAME = 28;
+    private static final int MAX_NAME_BYTES = PARTICIPANT_BYTES - NAME;
+
+    // Slot: [state][participant][sender length][message length][sender][message]
+    static final int SLOT_BYTES = 256;
+    private static final int STATE = 0;
+    private static final int ORIGIN = 8;
+    private static final int SENDER_LENGTH = 12;
+    private static final int MESSAGE_LENGTH = 16;
+    private static final int PAYLOAD = 20;
+    static final int MAX_PAYLOAD_BYTES = SLOT_BYTES - PAYLOAD;
+
+    // Slot state: 0 when never used, sequence + 1 when published, -(sequence + 1) when abandoned, or a writing marker
+    // of WRITING, the writer's participant index and sequence + 1
+    private static final long WRITING = 1L << 62;
+    private static final int WRITER_SHIFT = 52;
+    private static final long SEQUENCE_MASK = (1L << WRITER_SHIFT) - 1;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int slotCount;
+    private final long slotMask;
+    private final int participant;
+    private final int participantOffset;
+    private final long crashTimeoutMillis;
+    private final List<User> localUsers = new CopyOnWriteArrayList<>();
+    private final Map<String, User> remoteUsers = new ConcurrentHashMap<>();
+    // Messages sent from inside receive, as [sender][text], published by the reader thread
+    private final ConcurrentLinkedQueue<byte[][]> outbox = new ConcurrentLinkedQueue<>();
+    private final Thread reader;
+    private final long resumedAt;
+    private volatile boolean running = true;
+    // Read and written by senders and by the reader thread flushing the outbox
+    private volatile long cachedGate = Long.MIN_VALUE;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder lost = new LongAdder();
+    private final LongAdder abandoned = new LongAdder();
+
+    private SharedMemoryChatMediator(FileChannel channel, MappedByteBuffer buffer, int slotCount, int participant,
+                                     long crashTimeoutMillis) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.slotCount = slotCount;
+        this.slotMask = slotCount - 1;
+        this.participant = participant;
+        this.participantOffset = PARTICIPANTS_OFFSET + participant * PARTICIPANT_BYTES;
+        this.crashTimeoutMillis = crashTimeoutMillis;
+        this.resumedAt = (long) LONGS.getVolatile(buffer, participantOffset + CONSUMED);
+        this.reader = new Thread(this::readLoop, "shm-chat-reader");
+        this.reader.setDaemon(true);
+        this.reader.start();
+    }
+
+    // Maps the room file, creating it if needed, and joins as the named participant
+    public static SharedMemoryChatMediator open(Path file, String name, int slotCount, long crashTimeoutMillis)
+            throws IOException {
+        if (Integer.bitCount(slotCount) != 1) {
+            throw new IllegalArgumentException("slotCount must be a power of two");
+        }
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        if (nameBytes.length > MAX_NAME_BYTES) {
+            throw new IllegalArgumentException("Participant name is longer than " + MAX_NAME_BYTES + " bytes");
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            // The file lock serializes joining between processes, the ring itself is lock-free
+            FileLock lock = channel.lock();
+            try {
+                boolean created = channel.size() == 0;
+                if (!created) {
+                    MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, SLOTS_OFFSET);
+                    header.order(ByteOrder.nativeOrder());
+                    if (header.getLong(MAGIC_OFFSET) != MAGIC) {
+                        throw new IOException(file + " is not a chat ring");
+                    }
+                    slotCount = (int) header.getLong(SLOT_COUNT_OFFSET);
+                }
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                        SLOTS_OFFSET + (long) slotCount * SLOT_BYTES);
+                buffer.order(ByteOrder.nativeOrder());
+                if (created) {
+                    // A new file is zero-filled: no slot is published and the tail and every cursor start at 0
+                    buffer.putLong(SLOT_COUNT_OFFSET, slotCount);
+                    LONGS.setVolatile(buffer, MAGIC_OFFSET, MAGIC);
+                }
+                int participant = claimParticipant(buffer, nameBytes, crashTimeoutMillis);
+                return new SharedMemoryChatMediator(channel, buffer, slotCount, participant, crashTimeoutMillis);
+            } finally {
+                lock.release();
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Reuses the entry of a crashed participant with the same name, or takes a free one
+    private static int claimParticipant(MappedByteBuffer buffer, byte[] name, long crashTimeoutMillis) {
+        long pid = ProcessHandle.current().pid();
+        int free = -1;
+        for (int i = 0; i < MAX_PARTICIPANTS; i++) {
+            int offset = PARTICIPANTS_OFFSET + i * PARTICIPANT_BYTES;
+            long owner = (long) LONGS.getVolatile(buffer, offset + PID);
+            if (owner != 0 && hasName(buffer, offset, name)) {
+                if (isAlive(buffer, offset, crashTimeoutMillis)) {
+                    throw new IllegalStateException(new String(name, StandardCharsets.UTF_8) + " is already open");
+                }
+                LONGS.setVolatile(buffer, offset + HEARTBEAT, System.currentTimeMillis());
+                LONGS.setVolatile(buffer, offset + PID, pid);
+                return i;
+            }
+            if (free < 0 && (owner == 0 || !isAlive(buffer, offset, crashTimeoutMillis))) {
+                free = i;
+            }
+        }
+        if (free < 0) {
+            throw new IllegalStateException("All " + MAX_PARTICIPANTS + " participant entries are in use");
+        }
+        int offset = PARTICIPANTS_OFFSET + free * PARTICIPANT_BYTES;
+        buffer.putInt(offset + NAME_LENGTH, name.length);
+        buffer.put(offset + NAME, name);
+        LONGS.setVolatile(buffer, offset + CONSUMED, (long) LONGS.getVolatile(buffer, TAIL_OFFSET));
+        LONGS.setVolatile(buffer, offset + HEARTBEAT, System.currentTimeMillis());
+        LONGS.setVolatile(buffer, offset + PID, pid);
+        return free;
+    }
+
+    private static boolean hasName(MappedByteBuffer buffer, int offset, byte[] name) {
+        if (buffer.getInt(offset + NAME_LENGTH) != name.length) {
+            return false;
+        }
+        byte[] stored = new byte[name.length];
+        buffer.get(offset + NAME, stored);
+        return Arrays.equals(stored, name);
+    }
+
+    private static boolean isAlive(MappedByteBuffer buffer, int offset, long crashTimeoutMillis) {
+        long owner = (long) LONGS.getVolatile(buffer, offset + PID);
+        if (owner == 0) {
+            return false;
+        }
+        long heartbeat = (long) LONGS.getVolatile(buffer, offset + HEARTBEAT);
+        return System.currentTimeMillis() - heartbeat < crashTimeoutMillis
+                && ProcessHandle.of(owner).map(ProcessHandle::isAlive).orElse(false);
+    }
+
+    public void register(User user) {
+        localUsers.add(user);
+    }
+
+    public void unregister(User user) {
+        localUsers.remove(user);
+    }
+
+    @Override
+    public void showMessage(User user, String message) {
+        if (!running) {
+            throw new IllegalStateException("Mediator is closed");
+        }
+        byte[] sender = user.getName().getBytes(StandardCharsets.UTF_8);
+        byte[] text = message.getBytes(StandardCharsets.UTF_8);
+        if (sender.length + text.length > MAX_PAYLOAD_BYTES) {
+            throw new IllegalArgumentException("Message does not fit into a " + SLOT_BYTES + " byte slot");
+        }
+        deliverLocally(user, message);
+        if (Thread.currentThread() == reader) {
+            // Waiting for room here would wait for this very thread to read on
+            outbox.add(new byte[][] {sender, text});
+            return;
+        }
+        while (!publish(claim(), sender, text)) {
+            // A reader gave up on our slot because we took longer than the crash timeout; claim a new one
+        }
+        published.increment();
+    }
+
+    // Publishes queued replies while the ring has room, without waiting
+    private void flushOutbox() {
+        byte[][] pending;
+        while ((pending = outbox.peek()) != null) {
+            long sequence = tryClaim();
+            if (sequence < 0) {
+                return;
+            }
+            if (publish(sequence, pending[0], pending[1])) {
+                outbox.poll();
+                published.increment();
+            }
+        }
+    }
+
+    private boolean publish(long sequence, byte[] sender, byte[] text) {
+        int slot = slotOffset(sequence);
+        // Take the slot before touching it; this races with readers abandoning the sequence
+        while (true) {
+            long state = (long) LONGS.getVolatile(buffer, slot + STATE);
+            if (sequenceOf(state) >= sequence) {
+                // A reader gave up on the sequence before we started writing
+                return false;
+            }
+            if (LONGS.compareAndSet(buffer, slot + STATE, state, writing(sequence, participant))) {
+                break;
+            }
+        }
+        buffer.putInt(slot + ORIGIN, participant);
+        buffer.putInt(slot + SENDER_LENGTH, sender.length);
+        buffer.putInt(slot + MESSAGE_LENGTH, text.length);
+        buffer.put(slot + PAYLOAD, sender);
+        buffer.put(slot + PAYLOAD + sender.length, text);
+        // Readers only abandon a writing marker once our process is gone, so the slot is still ours
+        LONGS.setVolatile(buffer, slot + STATE, sequence + 1);
+        return true;
+    }
+
+    private static long writing(long sequence, int participant) {
+        return WRITING | (long) participant << WRITER_SHIFT | (sequence + 1);
+    }
+
+    private static boolean isWriting(long state) {
+        return (state & WRITING) != 0;
+    }
+
+    // Sequence the state belongs to, -1 for a slot that was never used
+    private static long sequenceOf(long state) {
+        if (state < 0) {
+            return -state - 1;
+        }
+        return (isWriting(state) ? state & SEQUENCE_MASK : state) - 1;
+    }
+
+    // Whether the process that set a writing marker could still finish writing
+    private boolean isWriterAlive(long state) {
+        int writer = (int) (state >>> WRITER_SHIFT) & (MAX_PARTICIPANTS - 1);
+        long pid = (long) LONGS.getVolatile(buffer, PARTICIPANTS_OFFSET + writer * PARTICIPANT_BYTES + PID);
+        return pid != 0 && ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false);
+    }
+
+    private long claim() {
+        long sequence;
+        while ((sequence = tryClaim()) < 0) {
+            // A live participant has not read the slot's previous message yet
+            LockSupport.parkNanos(50_000);
+        }
+        return sequence;
+    }
+
+    // Next sequence, or -1 if its slot still holds a message a live participant has to read
+    private long tryClaim() {
+        while (true) {
+            long sequence = (long) LONGS.getVolatile(buffer, TAIL_OFFSET);
+            long wrapPoint = sequence - slotCount;
+            if (wrapPoint >= cachedGate) {
+                cachedGate = gate();
+                if (wrapPoint >= cachedGate) {
+                    return -1;
+                }
+            }
+            if (LONGS.compareAndSet(buffer, TAIL_OFFSET, sequence, sequence + 1)) {
+                return sequence;
+            }
+        }
+    }
+
+    // Lowest sequence still to be read by a live participant
+    private long gate() {
+        long gate = Long.MAX_VALUE;
+        for (int i = 0; i < MAX_PARTICIPANTS; i++) {
+            int offset = PARTICIPANTS_OFFSET + i * PARTICIPANT_BYTES;
+            if (i == participant || isAlive(buffer, offset, crashTimeoutMillis)) {
+                gate = Math.min(gate, (long) LONGS.getVolatile(buffer, offset + CONSUMED));
+            }
+        }
+        return gate;
+    }
+
+    private void readLoop() {
+        long next = resumedAt;
+        long lastHeartbeat = 0;
+        long waitingSince = 0;
+        int idle = 0;
+        while (running) {
+            long now = System.currentTimeMillis();
+            if (now - lastHeartbeat >= 100) {
+                LONGS.setRelease(buffer, participantOffset + HEARTBEAT, now);
+                lastHeartbeat = now;
+            }
+            if (!outbox.isEmpty()) {
+                flushOutbox();
+            }
+            int slot = slotOffset(next);
+            long state = (long) LONGS.getAcquire(buffer, slot + STATE);
+            long stateSequence = sequenceOf(state);
+            if (state == next + 1) {
+                read(slot, next);
+                next++;
+            } else if (state == -(next + 1)) {
+                next++;
+            } else if (stateSequence > next) {
+                // Overwritten while we were considered crashed: skip to the oldest message still in the ring
+                long oldest = Math.max(next + 1, (long) LONGS.getVolatile(buffer, TAIL_OFFSET) - slotCount);
+                lost.add(oldest - next);
+                next = oldest;
+            } else if (stateSequence == next || (long) LONGS.getVolatile(buffer, TAIL_OFFSET) > next) {
+                // Being written, or claimed but not taken yet: the sender may have crashed. A slot that is being
+                // written is only given up once the writing process is gone, so a slow writer never loses it
+                if (waitingSince == 0) {
+                    waitingSince = now;
+                } else if (now - waitingSince > crashTimeoutMillis
+                        && (!isWriting(state) || !isWriterAlive(state))
+                        && LONGS.compareAndSet(buffer, slot + STATE, state, -(next + 1))) {
+                    abandoned.increment();
+                    next++;
+                }
+                idle = idle(idle);
+                continue;
+            } else {
+                idle = idle(idle);
+                continue;
+            }
+            waitingSince = 0;
+            idle = 0;
+            LONGS.setRelease(buffer, participantOffset + CONSUMED, next);
+        }
+    }
+
+    private void read(int slot, long sequence) {
+        if (buffer.getInt(slot + ORIGIN) == participant) {
+            return;
+        }
+        int senderLength = buffer.getInt(slot + SENDER_LENGTH);
+        int messageLength = buffer.getInt(slot + MESSAGE_LENGTH);
+        if (senderLength < 0 || messageLength < 0 || senderLength + messageLength > MAX_PAYLOAD_BYTES) {
+            lost.increment();
+            return;
+        }
+        byte[] payload = new byte[senderLength + messageLength];
+        buffer.get(slot + PAYLOAD, payload);
+        if ((long) LONGS.getAcquire(buffer, slot + STATE) != sequence + 1) {
+            // The slot was reused while copying it
+            lost.increment();
+            return;
+        }
+        String senderName = new String(payload, 0, senderLength, StandardCharsets.UTF_8);
+        String message = new String(payload, senderLength, messageLength, StandardCharsets.UTF_8);
+        User sender = remoteUsers.computeIfAbsent(senderName, remote -> new User(remote, this));
+        deliverLocally(sender, message);
+    }
+
+    private void deliverLocally(User sender, String message) {
+        for (User user : localUsers) {
+            if (user != sender) {
+                user.receive(sender, message);
+                delivered.increment();
+            }
+        }
+    }
+
+    private static int idle(int idle) {
+        if (idle < 100) {
+            Thread.onSpinWait();
+        } else if (idle < 200) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(20_000);
+        }
+        return idle + 1;
+    }
+
+    private int slotOffset(long sequence) {
+        return SLOTS_OFFSET + (int) (sequence & slotMask) * SLOT_BYTES;
+    }
+
+    // Sequence this participant resumed reading from
+    public long getResumedAt() {
+        return resumedAt;
+    }
+
+    public long getPublished() {
+        return published.sum();
+    }
+
+    public long getDelivered() {
+        return delivered.sum();
+    }
+
+    // Messages overwritten before this participant could read them
+    public long getLost() {
+        return lost.sum();
+    }
+
+    // Slots given up on because their sender did not publish within the crash timeout
+    public long getAbandoned() {
+        return abandoned.sum();
+    }
+
+    // Waits until this participant has read everything published so far
+    public void awaitCaughtUp() {
+        long target = (long) LONGS.getVolatile(buffer, TAIL_OFFSET);
+        while ((long) LONGS.getVolatile(buffer, participantOffset + CONSUMED) < target) {
+            LockSupport.parkNanos(100_000);
+        }
+    }
+
+    // Replies queued on the reader thread are dropped if they are still waiting for room
+    @Override
+    public void close() throws IOException {
+        running = false;
+        try {
+            reader.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // A clean exit frees the entry; a crash leaves it for the next process with the same name
+        LONGS.setVolatile(buffer, participantOffset + PID, 0L);
+        channel.close();
+    }
+}
+
+// Colleague that sends every message it receives back to the room
+class EchoUser extends User {
+    public EchoUser(String name, ChatMediator mediator) {
+        super(name, mediator);
+    }
+
+    @Override
+    public void receive(User sender, String message) {
+        sendMessage(message);
+    }
+}
+
+// Colleague that records when the last message arrived
+class PingUser extends User {
+    private volatile long received;
+
+    public PingUser(String name, ChatMediator mediator) {
+        super(name, mediator);
+    }
+
+    @Override
+    public void receive(User sender, String message) {
+        received++;
+    }
+
+    public long getReceived() {
+        return received;
+    }
+}
+
+// Client Code; with arguments it runs as one of the child processes started by the demo
+public class SharedMemoryMediatorPattern {
+    private static final long CRASH_TIMEOUT_MILLIS = 1_000;
+    private static final int WARMUP = 2_000;
+    private static final int ROUND_TRIPS = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0) {
+            runChild(args[0], Path.of(args[1]));
+            return;
+        }
+        Path dir = Files.createTempDirectory("shm-chat");
+        try {
+            demo(dir.resolve("demo.ring"));
+            echoBurst(dir.resolve("echo.ring"));
+            latencyBenchmark(dir.resolve("latency.ring"));
+            crashAndResume(dir.resolve("crash.ring"));
+        } finally {
+            try (var files = Files.list(dir)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(dir);
+        }
+    }
+
+    private static void demo(Path ring) throws Exception {
+        try (SharedMemoryChatMediator left = SharedMemoryChatMediator.open(ring, "left", 64, CRASH_TIMEOUT_MILLIS);
+             SharedMemoryChatMediator right = SharedMemoryChatMediator.open(ring, "right", 64, CRASH_TIMEOUT_MILLIS)) {
+            User alice = new User("Alice", left);
+            User bob = new User("Bob", right);
+            left.register(alice);
+            right.register(bob);
+            alice.sendMessage("Hello, Bob!");
+            right.awaitCaughtUp();
+            bob.sendMessage("Hey, Alice!");
+            left.awaitCaughtUp();
+        }
+    }
+
+    // Replies sent from receive must not wait for the replying reader itself, even when the ring is full
+    private static void echoBurst(Path ring) throws Exception {
+        try (SharedMemoryChatMediator source = SharedMemoryChatMediator.open(ring, "source", 8, CRASH_TIMEOUT_MILLIS);
+             SharedMemoryChatMediator mirror = SharedMemoryChatMediator.open(ring, "mirror", 8, CRASH_TIMEOUT_MILLIS)) {
+            PingUser counter = new PingUser("counter", source);
+            source.register(counter);
+            mirror.register(new EchoUser("mirror", mirror));
+            for (int i = 0; i < 1_000; i++) {
+                counter.sendMessage("burst " + i);
+            }
+            while (counter.getReceived() < 1_000) {
+                Thread.sleep(1);
+            }
+            System.out.printf("echoed %,d messages through an 8 slot ring%n", counter.getReceived());
+        }
+    }
+
+    // Round trips between this JVM and an echoing child JVM
+    private static void latencyBenchmark(Path ring) throws Exception {
+        try (SharedMemoryChatMediator mediator = SharedMemoryChatMediator.open(ring, "ping", 1024,
+                CRASH_TIMEOUT_MILLIS)) {
+            PingUser ping = new PingUser("ping", mediator);
+            mediator.register(ping);
+            Process echo = startChild("echo", ring);
+            // The child only sees messages sent after it joined, so keep asking until it answers
+            while (ping.getReceived() == 0) {
+                ping.sendMessage("ready?");
+                Thread.sleep(100);
+            }
+            Thread.sleep(100);
+
+            long[] rtt = new long[ROUND_TRIPS];
+            for (int i = 0; i < WARMUP + ROUND_TRIPS; i++) {
+                long expected = ping.getReceived() + 1;
+                long start = System.nanoTime();
+                ping.sendMessage("ping");
+                while (ping.getReceived() < expected) {
+                    // Yield rather than spin so the reader threads get the CPU on small machines
+                    Thread.yield();
+                }
+                if (i >= WARMUP) {
+                    rtt[i - WARMUP] = System.nanoTime() - start;
+                }
+            }
+            Arrays.sort(rtt);
+            System.out.printf("two-process round trip over %,d pings: p50=%.1f us p99=%.1f us p99.9=%.1f us%n",
+                    ROUND_TRIPS, rtt[ROUND_TRIPS / 2] / 1e3, rtt[ROUND_TRIPS * 99 / 100] / 1e3,
+                    rtt[ROUND_TRIPS * 999 / 1000] / 1e3);
+            ping.sendMessage("stop");
+            echo.waitFor();
+        }
+    }
+
+    // A reader is killed, the writer keeps going, and the reader resumes under the same name
+    private static void crashAndResume(Path ring) throws Exception {
+        try (SharedMemoryChatMediator mediator = SharedMemoryChatMediator.open(ring, "writer", 64,
+                CRASH_TIMEOUT_MILLIS)) {
+            User writer = new User("writer", mediator);
+            mediator.register(writer);
+            Process reader = startChild("stall", ring);
+            reader.getInputStream().read();
+            reader.destroyForcibly().waitFor();
+            System.out.println("reader killed, writing 1,000 messages into a 64 slot ring");
+            for (int i = 0; i < 1_000; i++) {
+                writer.sendMessage("message " + i);
+            }
+            startChild("resume", ring).waitFor();
+        }
+    }
+
+    private static Process startChild(String mode, Path ring) throws IOException {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                SharedMemoryMediatorPattern.class.getName(), mode, ring.toString());
+        builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+        if (!mode.equals("stall")) {
+            builder.redirectOutput(ProcessBuilder.Redirect.INHERIT);
+        }
+        return builder.start();
+    }
+
+    private static void runChild(String mode, Path ring) throws Exception {
+        switch (mode) {
+            case "echo": {
+                SharedMemoryChatMediator mediator = SharedMemoryChatMediator.open(ring, "echo", 1024,
+                        CRASH_TIMEOUT_MILLIS);
+                mediator.register(new EchoUser("echo", mediator) {
+                    @Override
+                    public void receive(User sender, String message) {
+                        if (message.equals("stop")) {
+                            System.exit(0);
+                        }
+                        super.receive(sender, message);
+                    }
+                });
+                Thread.sleep(Long.MAX_VALUE);
+                break;
+            }
+            case "stall": {
+                SharedMemoryChatMediator.open(ring, "reader", 64, CRASH_TIMEOUT_MILLIS);
+                // Tell the parent we have joined, then wait to be killed
+                System.out.write('j');
+                System.out.flush();
+                Thread.sleep(Long.MAX_VALUE);
+                break;
+            }
+            case "resume": {
+                try (SharedMemoryChatMediator mediator = SharedMemoryChatMediator.open(ring, "reader", 64,
+                        CRASH_TIMEOUT_MILLIS)) {
+                    PingUser reader = new PingUser("reader", mediator);
+                    mediator.register(reader);
+                    mediator.awaitCaughtUp();
+                    System.out.printf("reader resumed at sequence %d: lost %,d, received %,d%n",
+                            mediator.getResumedAt(), mediator.getLost(), reader.getReceived());
+                }
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown mode " + mode);
+        }
+    }
+}
@@ -0,0 +1,361 @@
+package com.designpatterns.behavioral;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/*
+A caretaker for the Memento pattern that keeps only the most recent mementos on the heap and spills older ones to disk.
+When more than heapEntries mementos are held, the oldest one on the heap is encoded as UTF-8, optionally compressed,
+and appended to a memory-mapped segment file; the heap keeps only a small reference with the segment and offset.
+Undo takes mementos from the heap first, so recent states restore as fast as before. Older states are read back
+lazily: only the segment holding the requested memento is mapped, and it stays mapped only while it is being read from
+or written to. Because mementos leave the history in the reverse order they were spilled, the space of a restored
+memento is reused by the next spill and a segment file is deleted as soon as its last memento has been restored.
+Each record is stored as [stored length][original length][compressed flag][bytes].
+ Pros:
+Bounded Heap: Memory use is capped by heapEntries no matter how long the session gets.
+Fast Recent Undo: The latest states never touch the disk.
+Lazy Restore: Restoring an old state reads a single record from a single segment.
+ Cons:
+Disk Space: Old states still cost disk space, reduced but not eliminated by compression.
+Slower Old Restores: Restoring a spilled state maps a file, and may inflate and decode the content.
+ */
+// Caretaker spilling older mementos to memory-mapped segment files
+class SpillingEditorHistory implements AutoCloseable {
+    private static final int HEADER_BYTES = 9;
+
+    // Location of a spilled memento
+    private static final class SpilledMemento {
+        final Segment segment;
+        final int offset;
+        final int storedLength;
+
+        SpilledMemento(Segment segment, int offset, int storedLength) {
+            this.segment = segment;
+            this.offset = offset;
+            this.storedLength = storedLength;
+        }
+    }
+
+    // One segment file; only mapped while in use
+    private static final class Segment {
+        final Path file;
+        final int capacity;
+        int writeOffset;
+        int liveRecords;
+
+        Segment(Path file, int capacity) {
+            this.file = file;
+            this.capacity = capacity;
+        }
+    }
+
+    private final Path directory;
+    private final int heapEntries;
+    private final int segmentBytes;
+    private final boolean compress;
+    // Newest first
+    private final Deque<EditorMemento> recent = new ArrayDeque<>();
+    // Newest first
+    private final Deque<SpilledMemento> spilled = new ArrayDeque<>();
+    private final List<Segment> segments = new ArrayList<>();
+    private Segment mappedSegment;
+    private MappedByteBuffer mapped;
+    private int nextSegmentId;
+    private long rawBytes;
+    private long storedBytes;
+
+    public SpillingEditorHistory(Path directory, int heapEntries, int segmentBytes, boolean compress)
+            throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.heapEntries = heapEntries;
+        this.segmentBytes = segmentBytes;
+        this.compress = compress;
+    }
+
+    public void save(Editor editor) {
+        recent.addFirst(editor.save());
+        if (recent.size() > heapEntries) {
+            spill(recent.removeLast());
+        }
+    }
+
+    public void undo(Editor editor) {
+        EditorMemento memento = recent.pollFirst();
+        if (memento == null) {
+            SpilledMemento newest = spilled.pollFirst();
+            if (newest == null) {
+                return;
+            }
+            memento = new EditorMemento(read(newest));
+            release(newest);
+        }
+        editor.restore(memento);
+    }
+
+    // Content saved stepsBack saves before the newest one, without undoing anything
+    public String peek(int stepsBack) {
+        if (stepsBack < 0 || stepsBack >= size()) {
+            throw new IndexOutOfBoundsException("No saved version " + stepsBack + " steps back");
+        }
+        if (stepsBack < recent.size()) {
+            java.util.Iterator<EditorMemento> mementos = recent.iterator();
+            for (int i = 0; i < stepsBack; i++) {
+                mementos.next();
+            }
+            return mementos.next().getContent();
+        }
+        java.util.Iterator<SpilledMemento> older = spilled.iterator();
+        for (int i = recent.size(); i < stepsBack; i++) {
+            older.next();
+        }
+        return read(older.next());
+    }
+
+    public int size() {
+        return recent.size() + spilled.size();
+    }
+
+    public int getSpilledCount() {
+        return spilled.size();
+    }
+
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    // Bytes of segment files currently on disk
+    public long getDiskBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            bytes += segment.capacity;
+        }
+        return bytes;
+    }
+
+    // UTF-8 bytes of the spilled contents before compression, and as stored
+    public long getRawBytes() {
+        return rawBytes;
+    }
+
+    public long getStoredBytes() {
+        return storedBytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        unmap();
+        for (Segment segment : segments) {
+            Files.deleteIfExists(segment.file);
+        }
+        segments.clear();
+        spilled.clear();
+        recent.clear();
+    }
+
+    private void spill(EditorMemento memento) {
+        byte[] raw = memento.getContent().getBytes(StandardCharsets.UTF_8);
+        byte[] stored = compress ? deflate(raw) : raw;
+        boolean compressed = stored != raw;
+        int recordBytes = HEADER_BYTES + stored.length;
+
+        Segment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (segment == null || segment.capacity - segment.writeOffset < recordBytes) {
+            segment = createSegment(Math.max(segmentBytes, recordBytes));
+        }
+        MappedByteBuffer buffer = map(segment);
+        int offset = segment.writeOffset;
+        buffer.putInt(offset, stored.length);
+        buffer.putInt(offset + 4, raw.length);
+        buffer.put(offset + 8, (byte) (compressed ? 1 : 0));
+        buffer.put(offset + HEADER_BYTES, stored);
+        segment.writeOffset += recordBytes;
+        segment.liveRecords++;
+        spilled.addFirst(new SpilledMemento(segment, offset, stored.length));
+        rawBytes += raw.length;
+        storedBytes += stored.length;
+    }
+
+    private String read(SpilledMemento memento) {
+        MappedByteBuffer buffer = map(memento.segment);
+        int rawLength = buffer.getInt(memento.offset + 4);
+        boolean compressed = buffer.get(memento.offset + 8) == 1;
+        byte[] stored = new byte[memento.storedLength];
+        buffer.get(memento.offset + HEADER_BYTES, stored);
+        byte[] raw = compressed ? inflate(stored, rawLength) : stored;
+        return new String(raw, StandardCharsets.UTF_8);
+    }
+
+    // The restored memento is the newest record of its segment, so its space is reused by the next spill
+    private void release(SpilledMemento memento) {
+        Segment segment = memento.segment;
+        segment.writeOffset = memento.offset;
+        rawBytes -= map(segment).getInt(memento.offset + 4);
+        storedBytes -= memento.storedLength;
+        if (--segment.liveRecords == 0) {
+            if (segment == mappedSegment) {
+                unmap();
+            }
+            segments.remove(segment);
+            try {
+                Files.deleteIfExists(segment.file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private Segment createSegment(int capacity) {
+        Segment segment = new Segment(directory.resolve(String.format("memento-%08d.seg", nextSegmentId++)),
+                capacity);
+        segments.add(segment);
+        return segment;
+    }
+
+    // Keeps a single segment mapped; mapping another one lets the previous mapping be reclaimed
+    private MappedByteBuffer map(Segment segment) {
+        if (segment != mappedSegment) {
+            unmap();
+            try (FileChannel channel = FileChannel.open(segment.file, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, segment.capacity);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            mappedSegment = segment;
+        }
+        return mapped;
+    }
+
+    private void unmap() {
+        mapped = null;
+        mappedSegment = null;
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + 64);
+            byte[] chunk = new byte[64 * 1024];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            // Content that does not compress is stored as is
+            return out.size() < raw.length ? out.toByteArray() : raw;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] stored, int rawLength) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(stored);
+            byte[] raw = new byte[rawLength];
+            int length = 0;
+            while (length < rawLength && !inflater.finished()) {
+                length += inflater.inflate(raw, length, rawLength - length);
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt memento record", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
+
+// Client code
+public class SpillingMementoPattern {
+    private static final String[] WORDS = {"the", "memento", "editor", "restores", "a", "previous", "state", "of",
+            "document", "while", "history", "keeps", "older", "versions", "on", "disk"};
+    private static final int DOCUMENT_WORDS = 30_000;
+    private static final int SAVES = 1_000;
+    private static final int HEAP_ENTRIES = 32;
+
+    public static void main(String[] args) throws IOException {
+        Path root = Files.createTempDirectory("mementos");
+        try (SpillingEditorHistory history = new SpillingEditorHistory(root.resolve("demo"), 1, 1 << 16, true)) {
+            Editor editor = new Editor();
+            editor.setContent("Version 1");
+            history.save(editor);
+            editor.setContent("Version 2");
+            history.save(editor);
+            editor.setContent("Version 3");
+            System.out.println("Current Content: " + editor.getContent() + " (" + history.getSpilledCount()
+                    + " memento on disk)");
+            history.undo(editor);
+            System.out.println("After undo: " + editor.getContent());
+            history.undo(editor);
+            System.out.println("After second undo: " + editor.getContent());
+        }
+
+        for (boolean compress : new boolean[]{false, true}) {
+            try (SpillingEditorHistory history = new SpillingEditorHistory(root.resolve("run-" + compress),
+                    HEAP_ENTRIES, 8 << 20, compress)) {
+                run(history, compress);
+            }
+        }
+        Files.walk(root).sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+    }
+
+    private static void run(SpillingEditorHistory history, boolean compress) {
+        Random random = new Random(3);
+        StringBuilder document = new StringBuilder();
+        for (int i = 0; i < DOCUMENT_WORDS; i++) {
+            document.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+        Editor editor = new Editor();
+        long saveNanos = 0;
+        for (int i = 0; i < SAVES; i++) {
+            document.insert(random.nextInt(document.length()), WORDS[random.nextInt(WORDS.length)] + ' ');
+            editor.setContent(document.toString());
+            long start = System.nanoTime();
+            history.save(editor);
+            saveNanos += System.nanoTime() - start;
+        }
+        System.out.printf("compress=%-5b %d saves of ~%,d chars: save %.1f us, %d on heap, %d spilled in %d segments%n",
+                compress, SAVES, document.length(), saveNanos / 1e3 / SAVES, HEAP_ENTRIES,
+                history.getSpilledCount(), history.getSegmentCount());
+        System.out.printf("  disk: %,d bytes in segment files, %,d stored for %,d bytes of content%n",
+                history.getDiskBytes(), history.getStoredBytes(), history.getRawBytes());
+
+        long start = System.nanoTime();
+        String oldest = history.peek(history.size() - 1);
+        System.out.printf("  peek oldest (%,d chars): %.2f ms%n", oldest.length(), (System.nanoTime() - start) / 1e6);
+
+        long recentNanos = 0;
+        for (int i = 0; i < HEAP_ENTRIES; i++) {
+            start = System.nanoTime();
+            history.undo(editor);
+            recentNanos += System.nanoTime() - start;
+        }
+        long spilledNanos = 0;
+        int spilledUndos = history.size();
+        for (int i = 0; i < spilledUndos; i++) {
+            start = System.nanoTime();
+            history.undo(editor);
+            spilledNanos += System.nanoTime() - start;
+        }
+        System.out.printf("  undo from heap %.2f us, undo from disk %.1f us, oldest restored correctly: %b, "
+                        + "segments left %d%n", recentNanos / 1e3 / HEAP_ENTRIES, spilledNanos / 1e3 / spilledUndos,
+                oldest.equals(editor.getContent()), history.getSegmentCount());
+    }
+}
@@ -0,0 +1,8 @@
+package com.designpatterns.behavioral;
+
+// Command whose effect fully replaces that of some earlier commands on the same receiver, see CommandExecutorPattern
+interface SupersedingCommand extends Command {
+    Object getReceiver();
+
+    boolean supersedes(Command earlier);
+}
@@ -0,0 +1,352 @@
+package com.designpatterns.behavioral;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/*
+Bulk replay for the Chain of Responsibility. Historical tickets are streamed line by line from a CSV or JSONL file, handed
+out in fixed-size batches through a bounded queue to one worker per core, parsed there and routed through a compiled
+SupportHandler chain. Every worker keeps its own per-handler counters, which are merged once at the end. Only a bounded
+number of batches is ever in memory, so memory use does not depend on the size of the input.
+CSV lines are "severity,description" (the description may be quoted), JSONL lines are objects with "severity" and
+"description" string fields.
+ Pros:
+Flat Memory: The reader blocks when the workers fall behind instead of buffering the file.
+Scales With Cores: Parsing and routing run in parallel, only reading the file is sequential.
+Dry Runs: Routing can be measured without running the handlers.
+ Cons:
+Unordered: Tickets are handled in parallel, handlers must be thread-safe when they are actually invoked.
+Simple Formats: The parsers cover flat records only, not arbitrary CSV dialects or nested JSON.
+ */
+// Outcome of a triage run
+class TriageReport {
+    private final Map<String, Long> handlerCounts;
+    private final long unhandled;
+    private final long malformed;
+    private final long failed;
+    private final long elapsedNanos;
+
+    TriageReport(Map<String, Long> handlerCounts, long unhandled, long malformed, long failed, long elapsedNanos) {
+        this.handlerCounts = handlerCounts;
+        this.unhandled = unhandled;
+        this.malformed = malformed;
+        this.failed = failed;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public Map<String, Long> getHandlerCounts() {
+        return handlerCounts;
+    }
+
+    public long getUnhandled() {
+        return unhandled;
+    }
+
+    public long getMalformed() {
+        return malformed;
+    }
+
+    // Tickets whose handler threw
+    public long getFailed() {
+        return failed;
+    }
+
+    public long getTickets() {
+        return handlerCounts.values().stream().mapToLong(Long::longValue).sum() + unhandled;
+    }
+
+    public double getTicketsPerSecond() {
+        return elapsedNanos == 0 ? 0 : getTickets() * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        handlerCounts.forEach((handler, count) -> sb.append(String.format("  %-24s %,12d%n", handler, count)));
+        sb.append(String.format("  %-24s %,12d%n", "unhandled", unhandled));
+        sb.append(String.format("  %-24s %,12d%n", "malformed", malformed));
+        sb.append(String.format("  %-24s %,12d%n", "failed", failed));
+        sb.append(String.format("  %,d tickets in %.1f ms (%,.0f tickets/s)",
+                getTickets(), elapsedNanos / 1_000_000.0, getTicketsPerSecond()));
+        return sb.toString();
+    }
+}
+
+// Streams a ticket file through a handler chain in parallel
+class TicketTriageRunner {
+    private static final List<String> END_OF_INPUT = new ArrayList<>();
+    private static final long HAND_OFF_CHECK_MILLIS = 100;
+
+    private final CompiledSupportChain chain;
+    private final int workers;
+    private final int batchSize;
+    private final int queuedBatches;
+    private final boolean invokeHandlers;
+
+    public TicketTriageRunner(SupportHandler head, int workers, int batchSize, int queuedBatches,
+                              boolean invokeHandlers) {
+        this.chain = CompiledSupportChain.compile(head);
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.queuedBatches = queuedBatches;
+        this.invokeHandlers = invokeHandlers;
+    }
+
+    public TriageReport run(Path file) throws IOException {
+        boolean json = file.getFileName().toString().endsWith(".jsonl");
+        BlockingQueue<List<String>> queue = new ArrayBlockingQueue<>(queuedBatches);
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        List<Future<WorkerCounts>> results = new ArrayList<>();
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < workers; i++) {
+                results.add(executor.submit(() -> route(queue, json)));
+            }
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                List<String> batch = new ArrayList<>(batchSize);
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    batch.add(line);
+                    if (batch.size() == batchSize) {
+                        handOff(queue, batch, results);
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    handOff(queue, batch, results);
+                }
+            }
+            // On failure the workers are interrupted by shutdownNow instead
+            for (int i = 0; i < workers; i++) {
+                handOff(queue, END_OF_INPUT, results);
+            }
+
+            WorkerCounts total = new WorkerCounts();
+            for (Future<WorkerCounts> result : results) {
+                total.merge(result.get());
+            }
+            return total.toReport(System.nanoTime() - start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while triaging " + file, e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Triage worker failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Blocks while the queue is full, but gives up as soon as no worker is left to empty it
+    private static void handOff(BlockingQueue<List<String>> queue, List<String> batch,
+                                List<Future<WorkerCounts>> results) throws InterruptedException, ExecutionException {
+        while (!queue.offer(batch, HAND_OFF_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+            boolean running = false;
+            for (Future<WorkerCounts> result : results) {
+                if (result.isDone()) {
+                    // Rethrows the failure of a worker that died
+                    result.get();
+                } else {
+                    running = true;
+                }
+            }
+            if (!running) {
+                throw new IllegalStateException("No triage worker left to take input");
+            }
+        }
+    }
+
+    private WorkerCounts route(BlockingQueue<List<String>> queue, boolean json) throws InterruptedException {
+        WorkerCounts counts = new WorkerCounts();
+        for (List<String> batch = queue.take(); batch != END_OF_INPUT; batch = queue.take()) {
+            for (String line : batch) {
+                if (!json && TicketParser.isCsvHeader(line)) {
+                    continue;
+                }
+                SupportTicket ticket = json ? TicketParser.fromJson(line) : TicketParser.fromCsv(line);
+                if (ticket == null) {
+                    counts.malformed++;
+                    continue;
+                }
+                try {
+                    SupportHandler handler = chain.route(ticket);
+                    if (invokeHandlers) {
+                        chain.handleRequest(ticket);
+                    }
+                    counts.count(handler);
+                } catch (RuntimeException e) {
+                    // One bad ticket must not take the worker, and with it the whole run, down
+                    counts.failed++;
+                }
+            }
+        }
+        return counts;
+    }
+
+    // Counters owned by a single worker until they are merged
+    private static final class WorkerCounts {
+        final Map<SupportHandler, long[]> perHandler = new HashMap<>();
+        long unhandled;
+        long malformed;
+        long failed;
+
+        void count(SupportHandler handler) {
+            if (handler == null) {
+                unhandled++;
+            } else {
+                perHandler.computeIfAbsent(handler, h -> new long[1])[0]++;
+            }
+        }
+
+        void merge(WorkerCounts other) {
+            other.perHandler.forEach((handler, count) ->
+                    perHandler.computeIfAbsent(handler, h -> new long[1])[0] += count[0]);
+            unhandled += other.unhandled;
+            malformed += other.malformed;
+            failed += other.failed;
+        }
+
+        TriageReport toReport(long elapsedNanos) {
+            Map<String, Long> counts = new LinkedHashMap<>();
+            perHandler.forEach((handler, count) -> {
+                String name = handler instanceof SeverityHandler
+                        ? handler.getClass().getSimpleName() + "(" + ((SeverityHandler) handler).getSeverity() + ")"
+                        : handler.getClass().getSimpleName();
+                counts.merge(name, count[0], Long::sum);
+            });
+            return new TriageReport(counts, unhandled, malformed, failed, elapsedNanos);
+        }
+    }
+}
+
+// Minimal line parsers for the supported formats, null for lines that cannot be read
+final class TicketParser {
+    private TicketParser() {
+    }
+
+    static boolean isCsvHeader(String line) {
+        return line.startsWith("severity,");
+    }
+
+    static SupportTicket fromCsv(String line) {
+        int comma = line.indexOf(',');
+        if (comma <= 0) {
+            return null;
+        }
+        String severity = line.substring(0, comma).trim();
+        String description = line.substring(comma + 1).trim();
+        if (description.length() >= 2 && description.startsWith("\"") && description.endsWith("\"")) {
+            description = description.substring(1, description.length() - 1).replace("\"\"", "\"");
+        }
+        return new SupportTicket(severity, description);
+    }
+
+    static SupportTicket fromJson(String line) {
+        String severity = stringField(line, "severity");
+        String description = stringField(line, "description");
+        return severity == null || description == null ? null : new SupportTicket(severity, description);
+    }
+
+    private static String stringField(String json, String field) {
+        int key = json.indexOf("\"" + field + "\"");
+        if (key < 0) {
+            return null;
+        }
+        int colon = json.indexOf(':', key + field.length() + 2);
+        int quote = colon < 0 ? -1 : json.indexOf('"', colon + 1);
+        if (quote < 0) {
+            return null;
+        }
+        StringBuilder value = new StringBuilder();
+        for (int i = quote + 1; i < json.length(); i++) {
+            char c = json.charAt(i);
+            if (c == '"') {
+                return value.toString();
+            }
+            if (c == '\\' && i + 1 < json.length()) {
+                char escaped = json.charAt(++i);
+                switch (escaped) {
+                    case 'n': value.append('\n'); break;
+                    case 't': value.append('\t'); break;
+                    case 'r': value.append('\r'); break;
+                    case 'u':
+                        if (i + 4 >= json.length()) {
+                            return null;
+                        }
+                        int code = 0;
+                        for (int digit = 1; digit <= 4; digit++) {
+                            int nibble = Character.digit(json.charAt(i + digit), 16);
+                            if (nibble < 0) {
+                                return null;
+                            }
+                            code = code << 4 | nibble;
+                        }
+                        value.append((char) code);
+                        i += 4;
+                        break;
+                    default: value.append(escaped); break;
+                }
+            } else {
+                value.append(c);
+            }
+        }
+        return null;
+    }
+}
+
+// Client
+public class TicketTriagePattern {
+    public static void main(String[] args) throws IOException {
+        SupportHandler l1Support = new LevelOneSupport();
+        SupportHandler l2Support = new LevelTwoSupport();
+        SupportHandler l3Support = new LevelThreeSupport();
+        l1Support.setNextHandler(l2Support);
+        l2Support.setNextHandler(l3Support);
+
+        String[] severities = {"Low", "Medium", "High", "Critical"};
+        Path csv = Files.createTempFile("tickets", ".csv");
+        Path jsonl = Files.createTempFile("tickets", ".jsonl");
+        try {
+            try (BufferedWriter csvOut = Files.newBufferedWriter(csv);
+                 BufferedWriter jsonOut = Files.newBufferedWriter(jsonl)) {
+                csvOut.write("severity,description\n");
+                for (int i = 0; i < 2_000_000; i++) {
+                    String severity = severities[(i * 7) % severities.length];
+                    csvOut.write(severity + ",\"Ticket " + i + ", replayed\"\n");
+                    jsonOut.write("{\"severity\": \"" + severity + "\", \"description\": \"Ticket " + i + "\"}\n");
+                }
+                // Broken escapes are counted as malformed instead of failing the run
+                jsonOut.write("{\"severity\": \"Low\", \"description\": \"Bad escape \\uZZ12\"}\n");
+                jsonOut.write("{\"severity\": \"Low\", \"description\": \"Truncated \\u12");
+            }
+
+            int cores = Runtime.getRuntime().availableProcessors();
+            TicketTriageRunner runner = new TicketTriageRunner(l1Support, cores, 4_096, cores * 2, false);
+            System.out.println("CSV (" + Files.size(csv) / (1024 * 1024) + " MB):");
+            System.out.println(runner.run(csv));
+            System.out.println("JSONL (" + Files.size(jsonl) / (1024 * 1024) + " MB):");
+            System.out.println(runner.run(jsonl));
+
+            Runtime runtime = Runtime.getRuntime();
+            System.out.println("Heap in use: " + (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024) + " MB");
+        } finally {
+            Files.deleteIfExists(csv);
+            Files.deleteIfExists(jsonl);
+        }
+    }
+}
@@ -0,0 +1,412 @@
+package com.designpatterns.behavioral;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+
+/*
+A subject that delivers each message only to the observers that subscribed to its topic. Topics are dot-separated
+paths such as "prices.eu.acme", and subscriptions are stored in a tree with one level per path segment, where a
+subscription may use "*" for exactly one segment or end with "#" for any remaining segments. Publishing walks the tree
+along the message's topic and collects the subscriptions found on the way, so the cost depends on the topic's depth
+and the number of matches, not on how many observers exist. A subscription can also carry a predicate on the message,
+which is only evaluated for observers whose topic already matched. Published topics are concrete, so "*" and "#" are
+rejected as segments there, and detaching prunes the tree nodes that no longer lead to a subscription.
+Subscriptions can be conflating. Such an observer is updated on a pool thread from a map that holds only the latest
+message per topic, so an observer that falls behind skips intermediate values instead of working through a backlog.
+An observer that throws only loses that message; the failure is counted and the other observers are still updated.
+ Pros:
+Targeted: Observers only receive the topics they subscribed to, in O(matches).
+Flexible: Wildcards and predicates cover most subscription needs without scanning every observer.
+Bounded Lag: Conflating observers hold at most one pending message per topic.
+ Cons:
+Lossy Conflation: Conflating observers do not see every value.
+Copying Subscribe: Subscribing copies the subscriber array of one tree node.
+ */
+// ConcreteSubject routing messages by topic
+class TopicSubject implements Subject, AutoCloseable {
+    private static final String ONE_SEGMENT = "*";
+    private static final String REST = "#";
+
+    // One level of the topic tree
+    private static final class Node {
+        final Map<String, Node> children = new ConcurrentHashMap<>();
+        volatile TopicSubscription[] subscriptions = new TopicSubscription[0];
+    }
+
+    // An observer's interest in a topic pattern
+    private final class TopicSubscription {
+        final Observer observer;
+        final Predicate<String> filter;
+        final boolean conflating;
+        // Latest pending message per topic, conflating subscriptions only
+        final Map<String, String> latest = new LinkedHashMap<>();
+        final AtomicBoolean scheduled = new AtomicBoolean();
+
+        TopicSubscription(Observer observer, Predicate<String> filter, boolean conflating) {
+            this.observer = observer;
+            this.filter = filter;
+            this.conflating = conflating;
+        }
+
+        void deliver(String topic, String message) {
+            if (filter != null && !filter.test(message)) {
+                return;
+            }
+            if (!conflating) {
+                update(message);
+                return;
+            }
+            synchronized (latest) {
+                if (latest.put(topic, message) != null) {
+                    conflated.increment();
+                }
+            }
+            if (scheduled.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+
+        void drain() {
+            try {
+                while (true) {
+                    Map.Entry<String, String> next;
+                    synchronized (latest) {
+                        java.util.Iterator<Map.Entry<String, String>> pending = latest.entrySet().iterator();
+                        if (!pending.hasNext()) {
+                            return;
+                        }
+                        next = pending.next();
+                        pending.remove();
+                    }
+                    update(next.getValue());
+                }
+            } finally {
+                boolean more;
+                synchronized (latest) {
+                    scheduled.set(false);
+                    more = !latest.isEmpty();
+                }
+                if (more && scheduled.compareAndSet(false, true)) {
+                    executor.execute(this::drain);
+                }
+            }
+        }
+
+        private void update(String message) {
+            try {
+                observer.update(message);
+                delivered.increment();
+            } catch (RuntimeException e) {
+                failed.increment();
+            }
+        }
+
+        boolean isIdle() {
+            synchronized (latest) {
+                return latest.isEmpty() && !scheduled.get();
+            }
+        }
+    }
+
+    private final Node root = new Node();
+    private final ExecutorService executor;
+    private final List<TopicSubscription> conflatingSubscriptions = new ArrayList<>();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder conflated = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private volatile String lastTopic;
+    private volatile String lastMessage;
+
+    public TopicSubject(int conflationThreads) {
+        this.executor = Executors.newFixedThreadPool(conflationThreads, runnable -> {
+            Thread thread = new Thread(runnable, "topic-conflation");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Subscribes to every topic
+    @Override
+    public void attach(Observer observer) {
+        subscribe(REST, observer, null, false);
+    }
+
+    public void subscribe(String pattern, Observer observer) {
+        subscribe(pattern, observer, null, false);
+    }
+
+    public synchronized void subscribe(String pattern, Observer observer, Predicate<String> filter,
+                                       boolean conflating) {
+        Node node = root;
+        String[] segments = pattern.split("\\.");
+        for (int i = 0; i < segments.length; i++) {
+            if (segments[i].equals(REST) && i != segments.length - 1) {
+                throw new IllegalArgumentException("'#' must be the last segment of " + pattern);
+            }
+            node = node.children.computeIfAbsent(segments[i], segment -> new Node());
+        }
+        TopicSubscription subscription = new TopicSubscription(observer, filter, conflating);
+        TopicSubscription[] current = node.subscriptions;
+        TopicSubscription[] next = Arrays.copyOf(current, current.length + 1);
+        next[current.length] = subscription;
+        node.subscriptions = next;
+        if (conflating) {
+            conflatingSubscriptions.add(subscription);
+        }
+    }
+
+    // Removes every subscription of the observer
+    @Override
+    public synchronized void detach(Observer observer) {
+        detach(root, observer);
+        conflatingSubscriptions.removeIf(subscription -> subscription.observer == observer);
+    }
+
+    // Returns whether the node is left without subscriptions and children, so its parent can drop it
+    private boolean detach(Node node, Observer observer) {
+        TopicSubscription[] current = node.subscriptions;
+        int kept = 0;
+        TopicSubscription[] next = new TopicSubscription[current.length];
+        for (TopicSubscription subscription : current) {
+            if (subscription.observer != observer) {
+                next[kept++] = subscription;
+            }
+        }
+        if (kept != current.length) {
+            node.subscriptions = Arrays.copyOf(next, kept);
+        }
+        node.children.values().removeIf(child -> detach(child, observer));
+        return node.subscriptions.length == 0 && node.children.isEmpty();
+    }
+
+    // Nodes in the topic tree below the root
+    public synchronized int getTopicNodes() {
+        return countNodes(root) - 1;
+    }
+
+    private static int countNodes(Node node) {
+        int count = 1;
+        for (Node child : node.children.values()) {
+            count += countNodes(child);
+        }
+        return count;
+    }
+
+    // Re-sends the last message to the observers of its topic
+    @Override
+    public void notifyObservers() {
+        if (lastTopic != null) {
+            publish(lastTopic, lastMessage);
+        }
+    }
+
+    public void setMessage(String topic, String message) {
+        String[] segments = topic.split("\\.");
+        for (String segment : segments) {
+            if (segment.equals(ONE_SEGMENT) || segment.equals(REST)) {
+                throw new IllegalArgumentException("Wildcards cannot be published to: " + topic);
+            }
+        }
+        lastTopic = topic;
+        lastMessage = message;
+        match(root, segments, 0, topic, message);
+    }
+
+    public long getDelivered() {
+        return delivered.sum();
+    }
+
+    // Updates whose observer threw
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    // Messages replaced by a newer one before a conflating observer got to them
+    public long getConflated() {
+        return conflated.sum();
+    }
+
+    public void awaitConflatedDelivered() {
+        List<TopicSubscription> subscriptions;
+        synchronized (this) {
+            subscriptions = new ArrayList<>(conflatingSubscriptions);
+        }
+        for (TopicSubscription subscription : subscriptions) {
+            while (!subscription.isIdle()) {
+                LockSupport.parkNanos(100_000);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        awaitConflatedDelivered();
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void publish(String topic, String message) {
+        match(root, topic.split("\\."), 0, topic, message);
+    }
+
+    private void match(Node node, String[] segments, int index, String topic, String message) {
+        Node rest = node.children.get(REST);
+        if (rest != null) {
+            deliver(rest, topic, message);
+        }
+        if (index == segments.length) {
+            deliver(node, topic, message);
+            return;
+        }
+        Node exact = node.children.get(segments[index]);
+        if (exact != null) {
+            match(exact, segments, index + 1, topic, message);
+        }
+        Node any = node.children.get(ONE_SEGMENT);
+        if (any != null) {
+            match(any, segments, index + 1, topic, message);
+        }
+    }
+
+    private void deliver(Node node, String topic, String message) {
+        for (TopicSubscription subscription : node.subscriptions) {
+            subscription.deliver(topic, message);
+        }
+    }
+}
+
+// Observer that remembers the last message it received and takes a while for each one
+class LaggingObserver implements Observer {
+    private final long delayNanos;
+    private volatile String last;
+    private volatile long updates;
+
+    LaggingObserver(long delayNanos) {
+        this.delayNanos = delayNanos;
+    }
+
+    @Override
+    public void update(String message) {
+        LockSupport.parkNanos(delayNanos);
+        last = message;
+        updates++;
+    }
+
+    public String getLast() {
+        return last;
+    }
+
+    public long getUpdates() {
+        return updates;
+    }
+}
+
+// Client code
+public class TopicObserverPattern {
+    private static final int TOPICS = 1_000;
+    private static final int OBSERVERS = 10_000;
+    private static final int MESSAGES = 20_000;
+
+    public static void main(String[] args) {
+        try (TopicSubject subject = new TopicSubject(1)) {
+            subject.subscribe("prices.eu.*", new ConcreteObserver("EU prices"));
+            subject.subscribe("prices.#", new ConcreteObserver("All prices"));
+            subject.subscribe("news", new ConcreteObserver("News"), message -> message.contains("urgent"), false);
+            subject.setMessage("prices.eu.acme", "acme 101.5");
+            subject.setMessage("prices.us.globex", "globex 48.2");
+            subject.setMessage("news", "weekly digest");
+            subject.setMessage("news", "urgent: market closed");
+            try {
+                subject.setMessage("prices.eu.*", "not a topic");
+            } catch (IllegalArgumentException e) {
+                System.out.println(e.getMessage());
+            }
+        }
+
+        // Observers of short-lived topics come and go; their tree nodes go with them
+        try (TopicSubject sessions = new TopicSubject(1)) {
+            CountingObserver counter = new CountingObserver();
+            sessions.subscribe("session.#", counter);
+            for (int i = 0; i < 1_000; i++) {
+                Observer session = new CountingObserver();
+                sessions.subscribe("session." + i + ".events", session);
+                sessions.setMessage("session." + i + ".events", "opened");
+                sessions.detach(session);
+            }
+            // A conflating observer that throws keeps being drained, so close does not hang
+            sessions.subscribe("session.#", message -> {
+                throw new IllegalStateException("cannot handle " + message);
+            }, null, true);
+            sessions.setMessage("session.0.events", "closed");
+            sessions.awaitConflatedDelivered();
+            System.out.printf("topic nodes after 1,000 sessions: %d, delivered %,d, failed %d%n",
+                    sessions.getTopicNodes(), sessions.getDelivered(), sessions.getFailed());
+        }
+
+        // Every observer watches one of TOPICS tickers, messages go to random tickers
+        TopicSubject topics = new TopicSubject(1);
+        ConcreteSubject broadcast = new ConcreteSubject();
+        for (int i = 0; i < OBSERVERS; i++) {
+            String topic = "ticker." + (i % TOPICS);
+            CountingObserver counter = new CountingObserver();
+            topics.subscribe(topic, counter);
+            // The original subject reaches everyone, so each observer has to check the topic itself
+            broadcast.attach(message -> {
+                if (message.startsWith(topic) && message.charAt(topic.length()) == ' ') {
+                    counter.update(message);
+                }
+            });
+        }
+        String[] messages = new String[MESSAGES];
+        Random random = new Random(5);
+        for (int i = 0; i < MESSAGES; i++) {
+            messages[i] = "ticker." + random.nextInt(TOPICS) + " " + i;
+        }
+        for (int round = 0; round < 3; round++) {
+            boolean report = round == 2;
+            long start = System.nanoTime();
+            for (String message : messages) {
+                topics.setMessage(message.substring(0, message.indexOf(' ')), message);
+            }
+            long topicNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < MESSAGES / 10; i++) {
+                broadcast.setMessage(messages[i]);
+            }
+            long broadcastNanos = (System.nanoTime() - start) * 10;
+            if (report) {
+                System.out.printf("topic index: %,.0f messages/s, broadcast with filtering observers: %,.0f messages/s%n",
+                        MESSAGES / (topicNanos / 1e9), MESSAGES / (broadcastNanos / 1e9));
+            }
+        }
+        topics.close();
+
+        // A slow observer of fast-moving prices only sees the latest value of each topic
+        try (TopicSubject prices = new TopicSubject(1)) {
+            LaggingObserver lagging = new LaggingObserver(200_000);
+            prices.subscribe("prices.#", lagging, null, true);
+            for (int i = 0; i < 100_000; i++) {
+                prices.setMessage("prices." + (i % 10), "price " + (i % 10) + " = " + i);
+            }
+            prices.awaitConflatedDelivered();
+            System.out.printf("conflating observer: %,d of 100,000 updates delivered, %,d conflated, last: %s%n",
+                    lagging.getUpdates(), prices.getConflated(), lagging.getLast());
+        }
+    }
+}
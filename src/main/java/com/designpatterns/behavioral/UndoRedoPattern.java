@@ -0,0 +1,196 @@
+package com.designpatterns.behavioral;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/*
+Undo and redo for the Command pattern with a bounded history. The invoker executes UndoableCommands and records them in a
+fixed-capacity ring buffer: undo walks backwards through the ring, redo walks forwards again, and executing a new command
+discards whatever could still be redone. Once the ring is full the oldest entry is overwritten, so memory use depends only
+on the capacity, never on how long the session runs. All operations are O(1) and recording a command allocates nothing.
+With the optional compact encoding, light commands on registered lights are stored as a single int (the light's index,
+whether it was on before and whether it was switched on) instead of a reference, so the history does not keep the command
+objects alive.
+ Pros:
+Flat Memory: The history is allocated once, up front.
+Constant Time: Undo, redo and recording never depend on the history length.
+Compact: Common light operations cost four bytes of history each.
+ Cons:
+Bounded: Only the last capacity commands can be undone.
+Inverse Operations: Undo relies on each command knowing how to reverse itself.
+Stateful Commands: A command remembers only the state before its latest execution, so an instance recorded twice in the
+reference history undoes both entries to that same state.
+ */
+// Invoker with a bounded undo/redo history
+class CommandHistory {
+    private static final int NOT_ENCODED = -1;
+
+    private final UndoableCommand[] commands;
+    private final int[] codes;
+    private final Light[] lights;
+    private final Map<Light, Integer> lightIndexes;
+
+    // Index of the oldest entry, number of entries that can be undone and number that can be redone after them
+    private int oldest;
+    private int undoable;
+    private int redoable;
+
+    public CommandHistory(int capacity) {
+        this(capacity, new Light[0]);
+    }
+
+    // Light commands on the given lights are stored in the compact encoding
+    public CommandHistory(int capacity, Light... compactLights) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.commands = new UndoableCommand[capacity];
+        this.lights = compactLights.clone();
+        this.lightIndexes = new IdentityHashMap<>();
+        for (int i = 0; i < lights.length; i++) {
+            lightIndexes.put(lights[i], i);
+        }
+        this.codes = lights.length == 0 ? null : new int[capacity];
+    }
+
+    public void execute(UndoableCommand command) {
+        command.execute();
+        int slot = slot(undoable);
+        int code = encode(command);
+        if (codes != null) {
+            codes[slot] = code;
+        }
+        commands[slot] = code == NOT_ENCODED ? command : null;
+        redoable = 0;
+        if (undoable == commands.length) {
+            oldest = slot(1);
+        } else {
+            undoable++;
+        }
+    }
+
+    public boolean undo() {
+        if (undoable == 0) {
+            return false;
+        }
+        int slot = slot(undoable - 1);
+        if (codes != null && codes[slot] != NOT_ENCODED) {
+            switchLight(codes[slot], false);
+        } else {
+            commands[slot].undo();
+        }
+        undoable--;
+        redoable++;
+        return true;
+    }
+
+    public boolean redo() {
+        if (redoable == 0) {
+            return false;
+        }
+        int slot = slot(undoable);
+        if (codes != null && codes[slot] != NOT_ENCODED) {
+            switchLight(codes[slot], true);
+        } else {
+            commands[slot].execute();
+        }
+        undoable++;
+        redoable--;
+        return true;
+    }
+
+    public int getUndoDepth() {
+        return undoable;
+    }
+
+    public int getRedoDepth() {
+        return redoable;
+    }
+
+    public int getCapacity() {
+        return commands.length;
+    }
+
+    private int slot(int offset) {
+        int slot = oldest + offset;
+        return slot >= commands.length ? slot - commands.length : slot;
+    }
+
+    // Light index shifted left by two, second bit set if the light was on before, lowest bit set for turning on
+    private int encode(UndoableCommand command) {
+        if (codes == null || !(command instanceof TurnOnLightCommand || command instanceof TurnOffLightCommand)) {
+            return NOT_ENCODED;
+        }
+        Integer index = lightIndexes.get(((SupersedingCommand) command).getReceiver());
+        if (index == null) {
+            return NOT_ENCODED;
+        }
+        boolean wasOn = command instanceof TurnOnLightCommand
+                ? ((TurnOnLightCommand) command).wasOn()
+                : ((TurnOffLightCommand) command).wasOn();
+        return index << 2 | (wasOn ? 2 : 0) | (command instanceof TurnOnLightCommand ? 1 : 0);
+    }
+
+    // Replays (forward) or reverses (backward) an encoded light command
+    private void switchLight(int code, boolean forward) {
+        Light light = lights[code >>> 2];
+        boolean turnOn = (code & (forward ? 1 : 2)) != 0;
+        if (turnOn) {
+            light.turnOn();
+        } else {
+            light.turnOff();
+        }
+    }
+}
+
+// Client Class
+public class UndoRedoPattern {
+    public static void main(String[] args) {
+        Light livingRoomLight = new Light();
+        CommandHistory history = new CommandHistory(3, livingRoomLight);
+
+        history.execute(new TurnOnLightCommand(livingRoomLight));
+        history.execute(new TurnOffLightCommand(livingRoomLight));
+        System.out.println("Undo:");
+        history.undo();
+        System.out.println("Redo:");
+        history.redo();
+        System.out.println("Undo twice:");
+        history.undo();
+        history.undo();
+        System.out.println("Nothing left to undo: " + !history.undo());
+
+        // Undo restores the state before the command, so undoing a redundant switch leaves the light as it was
+        history.execute(new TurnOnLightCommand(livingRoomLight));
+        history.execute(new TurnOnLightCommand(livingRoomLight));
+        System.out.println("Undo redundant turn on:");
+        history.undo();
+        System.out.println("Still on: " + livingRoomLight.isOn());
+
+        // Long session against a small, fixed history
+        QuietLight[] lights = new QuietLight[16];
+        for (int i = 0; i < lights.length; i++) {
+            lights[i] = new QuietLight();
+        }
+        UndoableCommand[] commands = new UndoableCommand[64];
+        for (int i = 0; i < commands.length; i++) {
+            QuietLight light = lights[i % lights.length];
+            commands[i] = i % 2 == 0 ? new TurnOnLightCommand(light) : new TurnOffLightCommand(light);
+        }
+        for (boolean compact : new boolean[]{false, true}) {
+            CommandHistory session = compact ? new CommandHistory(1_024, lights) : new CommandHistory(1_024);
+            long start = System.nanoTime();
+            for (int i = 0; i < 10_000_000; i++) {
+                session.execute(commands[i & (commands.length - 1)]);
+                if (i % 10 == 0) {
+                    session.undo();
+                    session.undo();
+                    session.redo();
+                }
+            }
+            System.out.printf("%s history: 10,000,000 commands in %.1f ms, undo depth %d of %d%n",
+                    compact ? "Compact" : "Reference", (System.nanoTime() - start) / 1_000_000.0,
+                    session.getUndoDepth(), session.getCapacity());
+        }
+    }
+}
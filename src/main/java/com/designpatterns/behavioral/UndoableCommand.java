@@ -0,0 +1,6 @@
+package com.designpatterns.behavioral;
+
+// Command that can reverse its own effect, see UndoRedoPattern
+interface UndoableCommand extends Command {
+    void undo();
+}
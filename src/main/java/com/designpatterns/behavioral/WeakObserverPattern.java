@@ -0,0 +1,218 @@
+package com.designpatterns.behavioral;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+A subject that can hold its observers weakly, so an observer that nobody else references is garbage collected even if
+it was never detached. Weak subscriptions are WeakReferences registered with a ReferenceQueue. Every attach and every
+notification first polls that queue and removes the subscriptions of observers the collector has cleared, and a
+notification that runs into a cleared subscription before the queue reports it removes it on the spot. Each
+subscription remembers its slot in the array and is removed by moving the last subscription into that slot, so
+pruning costs O(1) per dead observer and never requires a sweep over all subscriptions. A notification walks a copy of
+the array, so observers that attach or detach from inside update neither skip nor repeat anyone.
+Strong subscriptions behave exactly like the original subject and the two kinds can be mixed.
+ Pros:
+No Leaks: Forgotten observers stop costing memory and notification time once they are collected.
+Incremental: Dead subscriptions are pruned one at a time as they are discovered.
+Opt-in: Observers that must stay alive can still be attached strongly.
+ Cons:
+Surprising Lifetimes: An observer only referenced by the subject, like a lambda, disappears at the next collection.
+Order: Pruning moves subscriptions around, so observers are not notified in attach order.
+ */
+// ConcreteSubject that can reference observers weakly
+class WeakObserverSubject implements Subject {
+    // One attached observer, either held strongly or through the weak reference
+    private static final class Subscription extends WeakReference<Observer> {
+        final Observer strong;
+        int slot = -1;
+
+        Subscription(Observer observer, ReferenceQueue<Observer> queue, boolean weak) {
+            super(observer, weak ? queue : null);
+            this.strong = weak ? null : observer;
+        }
+
+        boolean isWeak() {
+            return strong == null;
+        }
+    }
+
+    private final ReferenceQueue<Observer> collected = new ReferenceQueue<>();
+    private Subscription[] subscriptions = new Subscription[16];
+    private int size;
+    private int weakCount;
+    private long prunedFromQueue;
+    private long prunedDuringNotify;
+    private String message;
+
+    @Override
+    public synchronized void attach(Observer observer) {
+        add(new Subscription(observer, collected, false));
+    }
+
+    // The subject will not keep the observer alive
+    public synchronized void attachWeak(Observer observer) {
+        add(new Subscription(observer, collected, true));
+        weakCount++;
+    }
+
+    @Override
+    public synchronized void detach(Observer observer) {
+        for (int i = 0; i < size; i++) {
+            if (subscriptions[i].get() == observer) {
+                remove(subscriptions[i]);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void notifyObservers() {
+        expungeCollected();
+        // Removals move subscriptions between slots, so walk a copy taken before any update runs
+        for (Subscription subscription : Arrays.copyOf(subscriptions, size)) {
+            if (subscription.slot < 0) {
+                // Detached by an earlier observer's update
+                continue;
+            }
+            Observer observer = subscription.strong != null ? subscription.strong : subscription.get();
+            if (observer == null) {
+                // Cleared but not yet enqueued
+                remove(subscription);
+                prunedDuringNotify++;
+                continue;
+            }
+            observer.update(message);
+        }
+    }
+
+    public synchronized void setMessage(String message) {
+        this.message = message;
+        notifyObservers();
+    }
+
+    // Subscriptions currently held, including weak ones the collector has cleared but not yet reported
+    public synchronized int getLiveSubscriptions() {
+        expungeCollected();
+        return size;
+    }
+
+    public synchronized int getWeakSubscriptions() {
+        return weakCount;
+    }
+
+    public synchronized long getPrunedFromQueue() {
+        return prunedFromQueue;
+    }
+
+    public synchronized long getPrunedDuringNotify() {
+        return prunedDuringNotify;
+    }
+
+    private void add(Subscription subscription) {
+        expungeCollected();
+        if (size == subscriptions.length) {
+            subscriptions = Arrays.copyOf(subscriptions, size * 2);
+        }
+        subscription.slot = size;
+        subscriptions[size++] = subscription;
+    }
+
+    // Removes the subscriptions the collector has reported, without looking at any others
+    private void expungeCollected() {
+        Object reference;
+        while ((reference = collected.poll()) != null) {
+            Subscription subscription = (Subscription) reference;
+            if (subscription.slot >= 0) {
+                remove(subscription);
+                prunedFromQueue++;
+            }
+        }
+    }
+
+    private void remove(Subscription subscription) {
+        int slot = subscription.slot;
+        Subscription last = subscriptions[--size];
+        subscriptions[slot] = last;
+        last.slot = slot;
+        subscriptions[size] = null;
+        subscription.slot = -1;
+        if (subscription.isWeak()) {
+            weakCount--;
+        }
+        subscription.clear();
+    }
+}
+
+// Client code
+public class WeakObserverPattern {
+    private static final int OBSERVERS = 200_000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws InterruptedException {
+        WeakObserverSubject subject = new WeakObserverSubject();
+        Observer kept = new ConcreteObserver("Kept observer");
+        subject.attachWeak(kept);
+        subject.attachWeak(new ConcreteObserver("Forgotten observer"));
+        subject.setMessage("Before collection");
+        collectGarbage();
+        subject.setMessage("After collection");
+        System.out.println("Live subscriptions: " + subject.getLiveSubscriptions());
+        Reference.reachabilityFence(kept);
+
+        // An observer that detaches itself must not make the subject skip the one after it
+        WeakObserverSubject once = new WeakObserverSubject();
+        once.attach(new ConcreteObserver("First"));
+        once.attach(new Observer() {
+            @Override
+            public void update(String message) {
+                System.out.println("One-shot received: " + message);
+                once.detach(this);
+            }
+        });
+        once.attach(new ConcreteObserver("Last"));
+        once.setMessage("Only once for the one-shot");
+        once.setMessage("Second message");
+
+        // Components come and go without detaching; half of every generation is dropped by its owner
+        WeakObserverSubject weak = new WeakObserverSubject();
+        ConcreteSubject strong = new ConcreteSubject();
+        List<Observer> reachable = new ArrayList<>();
+        System.out.printf("%6s %20s %12s %14s %14s%n", "round", "weak live/pruned", "weak notify", "strong live",
+                "strong notify");
+        for (int round = 1; round <= ROUNDS; round++) {
+            for (int i = 0; i < OBSERVERS; i++) {
+                CountingObserver weakObserver = new CountingObserver();
+                CountingObserver strongObserver = new CountingObserver();
+                weak.attachWeak(weakObserver);
+                strong.attach(strongObserver);
+                if (i % 2 == 0) {
+                    reachable.add(weakObserver);
+                    reachable.add(strongObserver);
+                }
+            }
+            collectGarbage();
+            long start = System.nanoTime();
+            weak.setMessage("round " + round);
+            long weakNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            strong.setMessage("round " + round);
+            long strongNanos = System.nanoTime() - start;
+            System.out.printf("%6d %,10d/%,-9d %9.1f ms %,14d %11.1f ms%n", round, weak.getLiveSubscriptions(),
+                    weak.getPrunedFromQueue() + weak.getPrunedDuringNotify(), weakNanos / 1e6,
+                    round * OBSERVERS, strongNanos / 1e6);
+        }
+        System.out.printf("pruned through the reference queue: %,d, during notification: %,d, still reachable: %,d%n",
+                weak.getPrunedFromQueue(), weak.getPrunedDuringNotify(), reachable.size() / 2);
+    }
+
+    private static void collectGarbage() throws InterruptedException {
+        System.gc();
+        // Give the reference handler a moment to enqueue the cleared references
+        Thread.sleep(50);
+    }
+}
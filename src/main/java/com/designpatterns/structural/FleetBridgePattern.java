@@ -0,0 +1,213 @@
+package com.designpatterns.structural;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/*
+A fleet-scale variation of the Bridge Pattern. The abstraction side (the remote control) is refined to drive a whole group
+of Device implementors at once instead of a single one. Each operation is fanned out to every device on an executor while
+a semaphore bounds how many device calls are in flight, so very large fleets never flood the executor queue.
+Every fan-out returns an aggregated result with the completion count, the failures and latency percentiles.
+ Pros
+Same Implementors: TV, Radio and any other Device work unchanged, the bridge stays intact.
+Bounded Concurrency: At most maxInFlight device calls run at the same time, no matter how large the fleet is.
+Observability: Each operation reports completions, failures and p50/p90/p99 latency.
+ Cons
+Thread Management: The caller owns the executor and is responsible for shutting it down.
+Partial Failure: An operation can succeed on some devices and fail on others, clients must inspect the result.
+Swallowed Errors: A device that throws an Error is reported as a failure instead of killing the executor thread.
+ */
+// Aggregated outcome of one fan-out operation
+class FleetOperationResult {
+    private final String operation;
+    private final int succeeded;
+    private final List<Throwable> failures;
+    private final long[] sortedLatenciesNanos;
+    private final long elapsedNanos;
+
+    FleetOperationResult(String operation, int succeeded, List<Throwable> failures,
+                         long[] latenciesNanos, long elapsedNanos) {
+        this.operation = operation;
+        this.succeeded = succeeded;
+        this.failures = Collections.unmodifiableList(failures);
+        this.sortedLatenciesNanos = latenciesNanos.clone();
+        Arrays.sort(this.sortedLatenciesNanos);
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    public int getFailed() {
+        return failures.size();
+    }
+
+    public List<Throwable> getFailures() {
+        return failures;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    // Nearest-rank percentile of the per-device latency, p in (0, 100]
+    public long percentileNanos(double p) {
+        if (sortedLatenciesNanos.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(p / 100.0 * sortedLatenciesNanos.length);
+        return sortedLatenciesNanos[Math.min(Math.max(rank, 1), sortedLatenciesNanos.length) - 1];
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: ok=%d failed=%d total=%.1fms p50=%.2fus p90=%.2fus p99=%.2fus",
+                operation, succeeded, getFailed(), elapsedNanos / 1_000_000.0,
+                percentileNanos(50) / 1_000.0, percentileNanos(90) / 1_000.0, percentileNanos(99) / 1_000.0);
+    }
+}
+
+// Refined Abstraction driving a group of devices
+class FleetRemoteControl {
+    private final List<Device> devices;
+    private final ExecutorService executor;
+    private final Semaphore inFlight;
+
+    public FleetRemoteControl(List<Device> devices, ExecutorService executor, int maxInFlight) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be positive");
+        }
+        this.devices = new ArrayList<>(devices);
+        this.executor = executor;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    public FleetOperationResult turnOn() {
+        return fanOut("turnOn", Device::turnOn);
+    }
+
+    public FleetOperationResult turnOff() {
+        return fanOut("turnOff", Device::turnOff);
+    }
+
+    public FleetOperationResult setVolume(int volume) {
+        return fanOut("setVolume(" + volume + ")", device -> device.setVolume(volume));
+    }
+
+    public FleetOperationResult mute() {
+        return fanOut("mute", device -> device.setVolume(0));
+    }
+
+    private FleetOperationResult fanOut(String operation, Consumer<Device> action) {
+        int size = devices.size();
+        long[] latencies = new long[size];
+        Throwable[] errors = new Throwable[size];
+        AtomicInteger succeeded = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(size);
+        long start = System.nanoTime();
+
+        for (int i = 0; i < size; i++) {
+            inFlight.acquireUninterruptibly();
+            Device device = devices.get(i);
+            int index = i;
+            try {
+                executor.execute(() -> {
+                    long begin = System.nanoTime();
+                    try {
+                        action.accept(device);
+                        succeeded.incrementAndGet();
+                    } catch (Throwable t) {
+                        // Errors are recorded too, so succeeded + failures always equals the fleet size
+                        errors[index] = t;
+                    } finally {
+                        latencies[index] = System.nanoTime() - begin;
+                        inFlight.release();
+                        done.countDown();
+                    }
+                });
+            } catch (RuntimeException rejected) {
+                errors[index] = rejected;
+                inFlight.release();
+                done.countDown();
+            }
+        }
+
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + operation, e);
+        }
+
+        List<Throwable> failures = new ArrayList<>();
+        for (Throwable error : errors) {
+            if (error != null) {
+                failures.add(error);
+            }
+        }
+        return new FleetOperationResult(operation, succeeded.get(), failures, latencies, System.nanoTime() - start);
+    }
+}
+
+// Quiet Concrete Implementor used to simulate a large fleet
+class SimulatedDevice implements Device {
+    private final boolean faulty;
+    private boolean on;
+    private int volume;
+
+    SimulatedDevice(boolean faulty) {
+        this.faulty = faulty;
+    }
+
+    @Override
+    public void turnOn() {
+        on = true;
+    }
+
+    @Override
+    public void turnOff() {
+        on = false;
+    }
+
+    @Override
+    public void setVolume(int volume) {
+        if (faulty) {
+            throw new IllegalStateException("Volume control not responding");
+        }
+        this.volume = volume;
+    }
+}
+
+// Client code
+public class FleetBridgePattern {
+    public static void main(String[] args) {
+        List<Device> fleet = new ArrayList<>();
+        for (int i = 0; i < 200_000; i++) {
+            fleet.add(new SimulatedDevice(i % 10_000 == 0));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            FleetRemoteControl remote = new FleetRemoteControl(fleet, executor, 1_024);
+            System.out.println(remote.turnOn());
+            System.out.println(remote.setVolume(10));
+            System.out.println(remote.mute());
+            System.out.println(remote.turnOff());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.designpatterns.structural;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/*
+A parallel variation of the Facade Pattern. The facade still offers a single watchMovie/endMovie call, but internally it
+declares each subsystem call as a step together with the steps it depends on. Steps without a dependency between them,
+such as powering on the Projector and the SoundSystem, run concurrently, while dependent steps such as dvdPlayer.on()
+followed by play() stay ordered. Each run reports the duration of every step and the critical path through the graph.
+ Pros
+Faster Startup: Total latency approaches the slowest chain of dependent steps instead of the sum of all steps.
+Declarative Ordering: Dependencies are stated once, next to the step, instead of being implied by statement order.
+Visibility: The report shows which steps dominate startup time.
+ Cons
+Thread Safety: Subsystems may now be called from different threads and must tolerate that.
+Complexity: A dependency graph is harder to read than a straight sequence of calls.
+ */
+// Timing of a single step
+class StepTiming {
+    private final String name;
+    private final long startNanos;
+    private final long endNanos;
+
+    StepTiming(String name, long startNanos, long endNanos) {
+        this.name = name;
+        this.startNanos = startNanos;
+        this.endNanos = endNanos;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    public long getDurationNanos() {
+        return endNanos - startNanos;
+    }
+}
+
+// Outcome of running a plan
+class StartupReport {
+    private final Map<String, StepTiming> timings;
+    private final List<String> criticalPath;
+    private final long criticalPathNanos;
+    private final long wallClockNanos;
+
+    StartupReport(Map<String, StepTiming> timings, List<String> criticalPath,
+                  long criticalPathNanos, long wallClockNanos) {
+        this.timings = Collections.unmodifiableMap(timings);
+        this.criticalPath = Collections.unmodifiableList(criticalPath);
+        this.criticalPathNanos = criticalPathNanos;
+        this.wallClockNanos = wallClockNanos;
+    }
+
+    public Map<String, StepTiming> getTimings() {
+        return timings;
+    }
+
+    public List<String> getCriticalPath() {
+        return criticalPath;
+    }
+
+    public long getCriticalPathNanos() {
+        return criticalPathNanos;
+    }
+
+    public long getWallClockNanos() {
+        return wallClockNanos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (StepTiming timing : timings.values()) {
+            sb.append(String.format("  %-20s %6.1f ms%n", timing.getName(), timing.getDurationNanos() / 1_000_000.0));
+        }
+        sb.append(String.format("  critical path %s = %.1f ms, wall clock %.1f ms",
+                criticalPath, criticalPathNanos / 1_000_000.0, wallClockNanos / 1_000_000.0));
+        return sb.toString();
+    }
+}
+
+// Dependency graph of facade steps
+class StartupPlan {
+    private static final class Step {
+        final String name;
+        final Runnable action;
+        final List<String> dependsOn;
+
+        Step(String name, Runnable action, List<String> dependsOn) {
+            this.name = name;
+            this.action = action;
+            this.dependsOn = dependsOn;
+        }
+    }
+
+    // Steps in declaration order, which is also a topological order
+    private final Map<String, Step> steps;
+
+    private StartupPlan(Builder builder) {
+        this.steps = new LinkedHashMap<>(builder.steps);
+    }
+
+    public StartupReport run(Executor executor) {
+        Map<String, CompletableFuture<Void>> futures = new HashMap<>();
+        Map<String, StepTiming> timings = Collections.synchronizedMap(new LinkedHashMap<>());
+        long start = System.nanoTime();
+
+        for (Step step : steps.values()) {
+            CompletableFuture<?>[] dependencies = step.dependsOn.stream()
+                    .map(futures::get)
+                    .toArray(CompletableFuture<?>[]::new);
+            CompletableFuture<Void> future = CompletableFuture.allOf(dependencies).thenRunAsync(() -> {
+                long begin = System.nanoTime();
+                step.action.run();
+                timings.put(step.name, new StepTiming(step.name, begin, System.nanoTime()));
+            }, executor);
+            futures.put(step.name, future);
+        }
+
+        try {
+            CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Startup step failed", e.getCause());
+        }
+        long wallClock = System.nanoTime() - start;
+
+        // Longest chain of step durations through the graph
+        Map<String, Long> finish = new HashMap<>();
+        Map<String, String> via = new HashMap<>();
+        String last = null;
+        for (Step step : steps.values()) {
+            long earliest = 0;
+            for (String dependency : step.dependsOn) {
+                if (finish.get(dependency) > earliest) {
+                    earliest = finish.get(dependency);
+                    via.put(step.name, dependency);
+                }
+            }
+            finish.put(step.name, earliest + timings.get(step.name).getDurationNanos());
+            if (last == null || finish.get(step.name) > finish.get(last)) {
+                last = step.name;
+            }
+        }
+        List<String> criticalPath = new ArrayList<>();
+        for (String name = last; name != null; name = via.get(name)) {
+            criticalPath.add(0, name);
+        }
+
+        Map<String, StepTiming> ordered = new LinkedHashMap<>();
+        for (String name : steps.keySet()) {
+            ordered.put(name, timings.get(name));
+        }
+        return new StartupReport(ordered, criticalPath, last == null ? 0 : finish.get(last), wallClock);
+    }
+
+    public static class Builder {
+        private final Map<String, Step> steps = new LinkedHashMap<>();
+
+        // Dependencies must already have been declared, which keeps the graph acyclic
+        public Builder step(String name, Runnable action, String... dependsOn) {
+            if (steps.containsKey(name)) {
+                throw new IllegalArgumentException("Duplicate step: " + name);
+            }
+            for (String dependency : dependsOn) {
+                if (!steps.containsKey(dependency)) {
+                    throw new IllegalArgumentException("Step " + name + " depends on undeclared step " + dependency);
+                }
+            }
+            steps.put(name, new Step(name, action, List.of(dependsOn)));
+            return this;
+        }
+
+        public StartupPlan build() {
+            return new StartupPlan(this);
+        }
+    }
+}
+
+// Facade running its subsystem calls as a dependency graph
+class ParallelHomeTheaterFacade {
+    private final DVDPlayer dvdPlayer;
+    private final Projector projector;
+    private final SoundSystem soundSystem;
+    private final Executor executor;
+
+    public ParallelHomeTheaterFacade(DVDPlayer dvdPlayer, Projector projector, SoundSystem soundSystem,
+                                     Executor executor) {
+        this.dvdPlayer = dvdPlayer;
+        this.projector = projector;
+        this.soundSystem = soundSystem;
+        this.executor = executor;
+    }
+
+    public StartupReport watchMovie(String movie) {
+        System.out.println("Get ready to watch a movie...");
+        StartupReport report = new StartupPlan.Builder()
+                .step("dvdPlayer.on", dvdPlayer::on)
+                .step("projector.on", projector::on)
+                .step("projector.wideScreen", projector::wideScreenMode, "projector.on")
+                .step("soundSystem.on", soundSystem::on)
+                .step("soundSystem.volume", () -> soundSystem.setVolume(10), "soundSystem.on")
+                .step("dvdPlayer.play", () -> dvdPlayer.play(movie),
+                        "dvdPlayer.on", "projector.wideScreen", "soundSystem.volume")
+                .build()
+                .run(executor);
+        System.out.println("Movie is now playing!");
+        return report;
+    }
+
+    public StartupReport endMovie() {
+        System.out.println("Shutting movie theater down...");
+        StartupReport report = new StartupPlan.Builder()
+                .step("dvdPlayer.stop", dvdPlayer::stop)
+                .step("dvdPlayer.off", dvdPlayer::off, "dvdPlayer.stop")
+                .step("projector.off", projector::off)
+                .step("soundSystem.off", soundSystem::off)
+                .build()
+                .run(executor);
+        System.out.println("Movie theater is off");
+        return report;
+    }
+}
+
+// Client code
+public class ParallelFacadePattern {
+    public static void main(String[] args) {
+        // Subsystems that take a while to warm up
+        DVDPlayer dvdPlayer = new DVDPlayer() {
+            @Override
+            public void on() {
+                warmUp(300);
+                super.on();
+            }
+        };
+        Projector projector = new Projector() {
+            @Override
+            public void on() {
+                warmUp(500);
+                super.on();
+            }
+        };
+        SoundSystem soundSystem = new SoundSystem() {
+            @Override
+            public void on() {
+                warmUp(400);
+                super.on();
+            }
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            ParallelHomeTheaterFacade homeTheater =
+                    new ParallelHomeTheaterFacade(dvdPlayer, projector, soundSystem, executor);
+            System.out.println(homeTheater.watchMovie("Inception"));
+            System.out.println(homeTheater.endMovie());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void warmUp(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
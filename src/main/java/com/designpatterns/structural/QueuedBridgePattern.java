@@ -0,0 +1,317 @@
+package com.designpatterns.structural;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/*
+A queued variation of the Bridge Pattern's Refined Abstraction. Instead of calling the Device implementor directly, every
+operation is appended to a lock-free multi-producer single-consumer queue owned by the remote. A single drainer applies the
+queued operations to the device in order and coalesces the ones that make no difference to the final state:
+consecutive setVolume calls collapse to the last value, and turnOn/turnOff pairs that return the device to the state it
+was already in cancel out.
+ Pros
+Fewer Device Calls: Bursts such as a volume slider being dragged reach the device as a single call.
+Ordering: Operations that survive coalescing are delivered in submission order by one writer.
+Non-blocking Callers: Producers only enqueue, the device is driven on the executor.
+ Cons
+Asynchronous: Callers no longer know when the device has actually been updated.
+Coalescing Assumptions: Only operations known to be redundant are dropped, unknown device state limits coalescing.
+ */
+// Lock-free multi-producer single-consumer linked queue (Vyukov style)
+class MpscQueue<T> {
+    private static final class Node<T> {
+        T value;
+        volatile Node<T> next;
+
+        Node(T value) {
+            this.value = value;
+        }
+    }
+
+    private final AtomicReference<Node<T>> tail;
+    private Node<T> head;
+
+    MpscQueue() {
+        Node<T> stub = new Node<>(null);
+        head = stub;
+        tail = new AtomicReference<>(stub);
+    }
+
+    // Safe to call from any thread
+    public void offer(T value) {
+        Node<T> node = new Node<>(value);
+        Node<T> previous = tail.getAndSet(node);
+        previous.next = node;
+    }
+
+    // Consumer only. Returns null when empty or while a producer is still linking its node
+    public T poll() {
+        Node<T> next = head.next;
+        if (next == null) {
+            return null;
+        }
+        T value = next.value;
+        next.value = null;
+        head = next;
+        return value;
+    }
+
+    // Consumer only
+    public boolean isEmpty() {
+        return tail.get() == head;
+    }
+}
+
+// Operation queued for a device
+class DeviceOperation {
+    enum Kind { TURN_ON, TURN_OFF, SET_VOLUME }
+
+    final Kind kind;
+    int volume;
+    // Power state the device was in before this operation, null when unknown
+    Boolean powerBefore;
+
+    DeviceOperation(Kind kind, int volume) {
+        this.kind = kind;
+        this.volume = volume;
+    }
+}
+
+// Refined Abstraction with a per-device command queue
+class QueuedRemoteControl extends RemoteControl {
+    private static final int MAX_BATCH = 1_024;
+
+    private final MpscQueue<DeviceOperation> queue = new MpscQueue<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final Executor executor;
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile RuntimeException lastFailure;
+    // Power state after everything delivered so far, only touched by the drainer
+    private Boolean knownPower;
+
+    protected QueuedRemoteControl(Device device, Executor executor) {
+        super(device);
+        this.executor = executor;
+    }
+
+    @Override
+    public void turnOn() {
+        submit(new DeviceOperation(DeviceOperation.Kind.TURN_ON, 0));
+    }
+
+    @Override
+    public void turnOff() {
+        submit(new DeviceOperation(DeviceOperation.Kind.TURN_OFF, 0));
+    }
+
+    @Override
+    public void setVolume(int volume) {
+        submit(new DeviceOperation(DeviceOperation.Kind.SET_VOLUME, volume));
+    }
+
+    public void mute() {
+        setVolume(0);
+    }
+
+    public long getSubmitted() {
+        return submitted.get();
+    }
+
+    public long getDelivered() {
+        return delivered.get();
+    }
+
+    // Operations the device threw on; they are not retried
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public RuntimeException getLastFailure() {
+        return lastFailure;
+    }
+
+    private void submit(DeviceOperation operation) {
+        submitted.incrementAndGet();
+        queue.offer(operation);
+        if (draining.compareAndSet(false, true)) {
+            executor.execute(this::drainLoop);
+        }
+    }
+
+    private void drainLoop() {
+        do {
+            try {
+                while (!queue.isEmpty()) {
+                    deliver(coalesce(nextBatch()));
+                }
+            } finally {
+                // Even if delivery dies, the next submit must be able to schedule a drainer
+                draining.set(false);
+            }
+        } while (!queue.isEmpty() && draining.compareAndSet(false, true));
+    }
+
+    private List<DeviceOperation> nextBatch() {
+        List<DeviceOperation> batch = new ArrayList<>();
+        while (batch.size() < MAX_BATCH && !queue.isEmpty()) {
+            DeviceOperation operation = queue.poll();
+            if (operation == null) {
+                // A producer has claimed the tail but not linked its node yet
+                Thread.onSpinWait();
+                continue;
+            }
+            batch.add(operation);
+        }
+        return batch;
+    }
+
+    private List<DeviceOperation> coalesce(List<DeviceOperation> batch) {
+        List<DeviceOperation> out = new ArrayList<>(batch.size());
+        Boolean power = knownPower;
+        for (DeviceOperation operation : batch) {
+            DeviceOperation last = out.isEmpty() ? null : out.get(out.size() - 1);
+            if (operation.kind == DeviceOperation.Kind.SET_VOLUME) {
+                if (last != null && last.kind == DeviceOperation.Kind.SET_VOLUME) {
+                    last.volume = operation.volume;
+                } else {
+                    out.add(operation);
+                }
+                continue;
+            }
+
+            Boolean target = operation.kind == DeviceOperation.Kind.TURN_ON;
+            if (target.equals(power)) {
+                continue;
+            }
+            if (last != null && last.kind != DeviceOperation.Kind.SET_VOLUME && target.equals(last.powerBefore)) {
+                out.remove(out.size() - 1);
+            } else {
+                operation.powerBefore = power;
+                out.add(operation);
+            }
+            power = target;
+        }
+        return out;
+    }
+
+    private void deliver(List<DeviceOperation> operations) {
+        for (DeviceOperation operation : operations) {
+            try {
+                switch (operation.kind) {
+                    case TURN_ON:
+                        device.turnOn();
+                        knownPower = Boolean.TRUE;
+                        break;
+                    case TURN_OFF:
+                        device.turnOff();
+                        knownPower = Boolean.FALSE;
+                        break;
+                    default:
+                        device.setVolume(operation.volume);
+                        break;
+                }
+                delivered.incrementAndGet();
+            } catch (RuntimeException e) {
+                // The device may or may not have switched, so stop coalescing against a guessed power state
+                if (operation.kind != DeviceOperation.Kind.SET_VOLUME) {
+                    knownPower = null;
+                }
+                lastFailure = e;
+                failed.incrementAndGet();
+            }
+        }
+    }
+}
+
+// Concrete Implementor that counts the calls it receives
+class CountingDevice implements Device {
+    private final AtomicLong calls = new AtomicLong();
+    private volatile int volume;
+
+    @Override
+    public void turnOn() {
+        calls.incrementAndGet();
+    }
+
+    @Override
+    public void turnOff() {
+        calls.incrementAndGet();
+    }
+
+    @Override
+    public void setVolume(int volume) {
+        calls.incrementAndGet();
+        this.volume = volume;
+    }
+
+    public long getCalls() {
+        return calls.get();
+    }
+
+    public int getVolume() {
+        return volume;
+    }
+}
+
+// Concrete Implementor whose power switch is broken
+class BrokenSwitchDevice extends CountingDevice {
+    @Override
+    public void turnOff() {
+        super.turnOff();
+        throw new IllegalStateException("power switch stuck");
+    }
+}
+
+// Client code
+public class QueuedBridgePattern {
+    public static void main(String[] args) throws InterruptedException {
+        CountingDevice tv = new CountingDevice();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        QueuedRemoteControl remote = new QueuedRemoteControl(tv, executor);
+
+        Thread[] sliders = new Thread[4];
+        for (int t = 0; t < sliders.length; t++) {
+            sliders[t] = new Thread(() -> {
+                for (int i = 0; i <= 50_000; i++) {
+                    remote.setVolume(i % 100);
+                }
+            });
+            sliders[t].start();
+        }
+        for (Thread slider : sliders) {
+            slider.join();
+        }
+        remote.turnOn();
+        remote.turnOff();
+        remote.turnOn();
+        remote.setVolume(42);
+
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        System.out.println("Submitted operations: " + remote.getSubmitted());
+        System.out.println("Delivered operations: " + remote.getDelivered());
+        System.out.println("Device calls: " + tv.getCalls() + ", final volume: " + tv.getVolume());
+
+        // A throwing device call is counted and skipped, later operations are still delivered
+        BrokenSwitchDevice radio = new BrokenSwitchDevice();
+        ExecutorService radioExecutor = Executors.newSingleThreadExecutor();
+        QueuedRemoteControl radioRemote = new QueuedRemoteControl(radio, radioExecutor);
+        radioRemote.turnOn();
+        radioRemote.turnOff();
+        radioRemote.setVolume(7);
+        radioExecutor.shutdown();
+        radioExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        System.out.println("Broken device: delivered " + radioRemote.getDelivered() + ", failed " + radioRemote.getFailed()
+                + " (" + radioRemote.getLastFailure().getMessage() + "), final volume: " + radio.getVolume());
+    }
+}
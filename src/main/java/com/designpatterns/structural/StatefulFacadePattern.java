@@ -0,0 +1,203 @@
+package com.designpatterns.structural;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+A state-aware variation of the Facade Pattern. The facade remembers what it has already done to each subsystem, so
+calling watchMovie twice, or endMovie followed by watchMovie, only issues the calls that actually change something.
+With warm standby enabled, endMovie stops playback but keeps the subsystems powered for an idle window; a new session
+started within that window finds everything already warm, and the subsystems are only powered off once the window expires.
+ Pros
+Idempotent: Repeated facade calls do not re-run power cycles.
+Fast Repeat Sessions: Warm standby turns back-to-back sessions into little more than a play() call.
+Measurable: Counters show how many subsystem calls were executed and how many were skipped.
+ Cons
+Trusts Its Own State: If a subsystem is switched by something other than the facade, the tracked state becomes stale.
+Power Usage: Subsystems stay on during the standby window.
+ */
+class StatefulHomeTheaterFacade {
+    private static final int MOVIE_VOLUME = 10;
+
+    private final DVDPlayer dvdPlayer;
+    private final Projector projector;
+    private final SoundSystem soundSystem;
+    private final Duration standbyWindow;
+    private final ScheduledExecutorService scheduler;
+
+    private final AtomicLong executedCalls = new AtomicLong();
+    private final AtomicLong skippedCalls = new AtomicLong();
+
+    // Tracked subsystem state, guarded by this
+    private boolean dvdPlayerOn;
+    private boolean projectorOn;
+    private boolean wideScreen;
+    private boolean soundSystemOn;
+    private int volume = -1;
+    private String playing;
+    private ScheduledFuture<?> pendingPowerOff;
+    // Bumped whenever a pending power-off is cancelled, so a late-running one can tell it is stale
+    private long standbyGeneration;
+
+    // Powers everything off as soon as the movie ends
+    public StatefulHomeTheaterFacade(DVDPlayer dvdPlayer, Projector projector, SoundSystem soundSystem) {
+        this(dvdPlayer, projector, soundSystem, Duration.ZERO, null);
+    }
+
+    // Keeps subsystems warm for standbyWindow after the movie ends, using the scheduler to power them off later
+    public StatefulHomeTheaterFacade(DVDPlayer dvdPlayer, Projector projector, SoundSystem soundSystem,
+                                     Duration standbyWindow, ScheduledExecutorService scheduler) {
+        if (!standbyWindow.isZero() && scheduler == null) {
+            throw new IllegalArgumentException("A scheduler is required for warm standby");
+        }
+        this.dvdPlayer = dvdPlayer;
+        this.projector = projector;
+        this.soundSystem = soundSystem;
+        this.standbyWindow = standbyWindow;
+        this.scheduler = scheduler;
+    }
+
+    public synchronized void watchMovie(String movie) {
+        System.out.println("Get ready to watch a movie...");
+        cancelPendingPowerOff();
+        if (movie.equals(playing)) {
+            skipped();
+            System.out.println("Movie is already playing!");
+            return;
+        }
+        if (playing != null) {
+            executed();
+            dvdPlayer.stop();
+        }
+
+        if (track(!dvdPlayerOn)) {
+            dvdPlayer.on();
+            dvdPlayerOn = true;
+        }
+        if (track(!projectorOn)) {
+            projector.on();
+            projectorOn = true;
+        }
+        if (track(!wideScreen)) {
+            projector.wideScreenMode();
+            wideScreen = true;
+        }
+        if (track(!soundSystemOn)) {
+            soundSystem.on();
+            soundSystemOn = true;
+        }
+        if (track(volume != MOVIE_VOLUME)) {
+            soundSystem.setVolume(MOVIE_VOLUME);
+            volume = MOVIE_VOLUME;
+        }
+        executed();
+        dvdPlayer.play(movie);
+        playing = movie;
+        System.out.println("Movie is now playing!");
+    }
+
+    public synchronized void endMovie() {
+        System.out.println("Shutting movie theater down...");
+        if (track(playing != null)) {
+            dvdPlayer.stop();
+            playing = null;
+        }
+        if (standbyWindow.isZero()) {
+            powerOff();
+            System.out.println("Movie theater is off");
+        } else {
+            cancelPendingPowerOff();
+            long generation = standbyGeneration;
+            pendingPowerOff = scheduler.schedule(() -> standbyExpired(generation),
+                    standbyWindow.toNanos(), TimeUnit.NANOSECONDS);
+            System.out.println("Movie theater is on standby for " + standbyWindow.toMillis() + " ms");
+        }
+    }
+
+    public long getExecutedCalls() {
+        return executedCalls.get();
+    }
+
+    public long getSkippedCalls() {
+        return skippedCalls.get();
+    }
+
+    private synchronized void standbyExpired(long generation) {
+        if (generation != standbyGeneration) {
+            return;
+        }
+        pendingPowerOff = null;
+        powerOff();
+        System.out.println("Standby window expired, movie theater is off");
+    }
+
+    private void powerOff() {
+        if (track(dvdPlayerOn)) {
+            dvdPlayer.off();
+            dvdPlayerOn = false;
+        }
+        if (track(projectorOn)) {
+            projector.off();
+            projectorOn = false;
+            wideScreen = false;
+        }
+        if (track(soundSystemOn)) {
+            soundSystem.off();
+            soundSystemOn = false;
+            volume = -1;
+        }
+    }
+
+    private void cancelPendingPowerOff() {
+        standbyGeneration++;
+        if (pendingPowerOff != null) {
+            pendingPowerOff.cancel(false);
+            pendingPowerOff = null;
+        }
+    }
+
+    // Counts the call as executed when needed, otherwise as skipped
+    private boolean track(boolean needed) {
+        if (needed) {
+            executed();
+        } else {
+            skipped();
+        }
+        return needed;
+    }
+
+    private void executed() {
+        executedCalls.incrementAndGet();
+    }
+
+    private void skipped() {
+        skippedCalls.incrementAndGet();
+    }
+}
+
+// Client code
+public class StatefulFacadePattern {
+    public static void main(String[] args) throws InterruptedException {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try {
+            StatefulHomeTheaterFacade homeTheater = new StatefulHomeTheaterFacade(
+                    new DVDPlayer(), new Projector(), new SoundSystem(), Duration.ofMillis(200), scheduler);
+
+            homeTheater.watchMovie("Inception");
+            homeTheater.watchMovie("Inception");
+            homeTheater.endMovie();
+            homeTheater.watchMovie("Interstellar");
+            homeTheater.endMovie();
+            Thread.sleep(400);
+
+            System.out.println("Executed subsystem calls: " + homeTheater.getExecutedCalls());
+            System.out.println("Skipped subsystem calls: " + homeTheater.getSkippedCalls());
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+}